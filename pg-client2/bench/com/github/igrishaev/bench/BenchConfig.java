@@ -0,0 +1,16 @@
+package com.github.igrishaev.bench;
+
+import com.github.igrishaev.ConnConfig;
+
+// -Dpg.host=... -Dpg.port=... etc, defaults match the test database
+public class BenchConfig {
+
+    public static ConnConfig config () {
+        final String user = System.getProperty("pg.user", "test");
+        return ConnConfig.builder(user, System.getProperty("pg.database", "test"))
+                .host(System.getProperty("pg.host", "127.0.0.1"))
+                .port(Integer.getInteger("pg.port", 10130))
+                .password(System.getProperty("pg.password", "test"))
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.igrishaev.bench;
+
+import com.github.igrishaev.codec.CodecParams;
+import com.github.igrishaev.codec.DecoderBin;
+import com.github.igrishaev.codec.DecoderTxt;
+import com.github.igrishaev.codec.EncoderBin;
+import com.github.igrishaev.codec.EncoderTxt;
+import com.github.igrishaev.enums.Format;
+import com.github.igrishaev.enums.OID;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// one value per call, the score is ns per value
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBench {
+
+    @Param({
+            "INT2", "INT4", "INT8", "FLOAT4", "FLOAT8", "NUMERIC", "BOOL",
+            "TEXT", "UUID", "BYTEA", "DATE", "TIME", "TIMETZ", "TIMESTAMP", "TIMESTAMPTZ"
+    })
+    public String type;
+
+    private OID oid;
+    private Object value;
+    private ByteBuffer bin;
+    private String txt;
+    private CodecParams codecParams;
+
+    @Setup
+    public void setup () {
+        oid = OID.valueOf(type);
+        value = Wire.sample(oid);
+        bin = ByteBuffer.wrap(Wire.encode(value, oid, Format.BIN));
+        txt = new String(Wire.encode(value, oid, Format.TXT), StandardCharsets.UTF_8);
+        codecParams = CodecParams.standard();
+    }
+
+    @Benchmark
+    public Object encodeBin () {
+        return EncoderBin.encode(value, oid, codecParams);
+    }
+
+    @Benchmark
+    public Object encodeTxt () {
+        return EncoderTxt.encode(value, oid, codecParams);
+    }
+
+    @Benchmark
+    public Object decodeBin () {
+        bin.rewind();
+        return DecoderBin.decode(bin, oid, codecParams);
+    }
+
+    @Benchmark
+    public Object decodeTxt () {
+        return DecoderTxt.decode(txt, oid);
+    }
+}
@@ -0,0 +1,251 @@
+package com.github.igrishaev.bench;
+
+import com.github.igrishaev.ConnConfig;
+import com.github.igrishaev.Connection;
+import com.github.igrishaev.ExecuteParams;
+import com.github.igrishaev.RowView;
+import com.github.igrishaev.enums.OID;
+import com.github.igrishaev.reducer.IReducer;
+import com.github.igrishaev.reducer.IRowReducer;
+import com.github.igrishaev.reducer.MapMixin;
+import clojure.lang.Keyword;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The connection against FakeServer: the server only copies prepared
+// bytes, so the score is the client's own cost. Run it with -prof gc
+// to see the allocation rate. The score is calls per second, so rows
+// per second is the score times the rows param.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectionBench {
+
+    private static final String SQL = "select id, name, amount, created_at, is_active from items";
+    private static final String NUMBERS = "select id, amount, score from measures";
+    private static final String DOCS = "select id, doc from documents";
+    private static final String COPY_OUT = "COPY (" + SQL + ") TO STDOUT";
+    private static final String COPY_IN = "COPY items FROM STDIN WITH (FORMAT CSV)";
+
+    @Param({"1", "1000", "100000"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean binary;
+
+    private FakeServer server;
+    private Connection conn;
+    private ExecuteParams copyOutParams;
+    private ExecuteParams copyInParams;
+    private ExecuteParams sumBoxedParams;
+    private ExecuteParams sumRowParams;
+    private ExecuteParams columnsParams;
+    private ExecuteParams indexByParams;
+    private ExecuteParams indexByLazyParams;
+    private ExecuteParams parallelParams;
+
+    private static final Keyword ID = Keyword.intern("id");
+
+    // both sums keep a long[] accumulator, so only the rows differ
+    private static final IReducer sumBoxed = new MapMixin() {
+        public Object initiate () {
+            return new long[1];
+        }
+        public Object append (final Object acc, final Object row) {
+            ((long[]) acc)[0] += ((Number) ((Map<?, ?>) row).get(ID)).longValue();
+            return acc;
+        }
+        public Object finalize (final Object acc) {
+            return ((long[]) acc)[0];
+        }
+    };
+
+    private static final IRowReducer sumRow = new IRowReducer() {
+        public Object initiate () {
+            return new long[1];
+        }
+        public Object appendRow (final Object acc, final RowView row) {
+            ((long[]) acc)[0] += row.getLong(0);
+            return acc;
+        }
+        public Object finalize (final Object acc) {
+            return ((long[]) acc)[0];
+        }
+    };
+
+    @Setup
+    public void setup () {
+        final List<FakeServer.Column> columns = List.of(
+                new FakeServer.Column("id", OID.INT4),
+                new FakeServer.Column("name", OID.TEXT),
+                new FakeServer.Column("amount", OID.NUMERIC),
+                new FakeServer.Column("created_at", OID.TIMESTAMPTZ),
+                new FakeServer.Column("is_active", OID.BOOL)
+        );
+        final OffsetDateTime now = OffsetDateTime.of(2023, 10, 18, 13, 45, 21, 123456000, ZoneOffset.UTC);
+        final List<Object[]> data = new ArrayList<>(rows);
+        final List<List<Object>> copyRows = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            final Object[] row = {
+                    i,
+                    "item number " + i,
+                    BigDecimal.valueOf(i * 100 + 99, 2),
+                    now.plusSeconds(i),
+                    i % 2 == 0
+            };
+            data.add(row);
+            copyRows.add(List.of(row));
+        }
+        final FakeServer.Result result = new FakeServer.Result(columns, data);
+
+        final List<Object[]> numbers = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            numbers.add(new Object[] {i, i * 1000L, i * 0.25});
+        }
+        final List<Object[]> docs = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            docs.add(new Object[] {i, String.format(
+                    "{\"id\": %s, \"title\": \"document %s\", \"tags\": [\"a\", \"b\", \"c\"], "
+                            + "\"author\": {\"name\": \"user %s\", \"email\": \"user%s@example.com\"}, "
+                            + "\"score\": %s, \"is_public\": %s}",
+                    i, i, i % 100, i % 100, i * 0.5, i % 2 == 0
+            )});
+        }
+        final FakeServer.Result docsResult = new FakeServer.Result(
+                List.of(new FakeServer.Column("id", OID.INT4), new FakeServer.Column("doc", OID.JSONB)),
+                docs
+        );
+
+        final FakeServer.Result numbersResult = new FakeServer.Result(
+                List.of(
+                        new FakeServer.Column("id", OID.INT4),
+                        new FakeServer.Column("amount", OID.INT8),
+                        new FakeServer.Column("score", OID.FLOAT8)
+                ),
+                numbers
+        );
+
+        server = new FakeServer();
+        server.setResult(SQL, result);
+        server.setResult(COPY_OUT, result);
+        server.setResult(NUMBERS, numbersResult);
+        server.setResult(DOCS, docsResult);
+
+        final ConnConfig config = ConnConfig.builder("test", "test")
+                .host("127.0.0.1")
+                .port(server.getPort())
+                .binaryEncode(binary)
+                .binaryDecode(binary)
+                .build();
+        conn = new Connection(config);
+
+        copyOutParams = ExecuteParams.builder()
+                .outputStream(OutputStream.nullOutputStream())
+                .build();
+        copyInParams = ExecuteParams.builder()
+                .copyInRows(copyRows)
+                .OIDs(List.of(OID.INT4, OID.TEXT, OID.NUMERIC, OID.TIMESTAMPTZ, OID.BOOL))
+                .setCSV()
+                .build();
+        sumBoxedParams = ExecuteParams.builder()
+                .reducer(sumBoxed)
+                .build();
+        sumRowParams = ExecuteParams.builder()
+                .reducer(sumRow)
+                .build();
+        columnsParams = ExecuteParams.builder()
+                .asColumns()
+                .build();
+        indexByParams = ExecuteParams.builder()
+                .indexBy(ID)
+                .build();
+        indexByLazyParams = ExecuteParams.builder()
+                .indexBy(ID)
+                .lazy(true)
+                .build();
+        parallelParams = ExecuteParams.builder()
+                .parallelDecode(true)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown () {
+        conn.close();
+        server.close();
+    }
+
+    // the simple protocol always returns text
+    @Benchmark
+    public Object query () {
+        return conn.query(SQL);
+    }
+
+    @Benchmark
+    public Object execute () {
+        return conn.execute(SQL);
+    }
+
+    @Benchmark
+    public Object sumBoxed () {
+        return conn.execute(SQL, sumBoxedParams);
+    }
+
+    @Benchmark
+    public Object sumRowView () {
+        return conn.execute(SQL, sumRowParams);
+    }
+
+    // only the id gets decoded in lazy mode
+    @Benchmark
+    public Object indexBy () {
+        return conn.execute(SQL, indexByParams);
+    }
+
+    @Benchmark
+    public Object indexByLazy () {
+        return conn.execute(SQL, indexByLazyParams);
+    }
+
+    // jsonb rows decoded on this thread or on the common pool
+    @Benchmark
+    public Object docs () {
+        return conn.execute(DOCS);
+    }
+
+    @Benchmark
+    public Object docsParallel () {
+        return conn.execute(DOCS, parallelParams);
+    }
+
+    // rows and columns of numbers only, compare the alloc rate
+    @Benchmark
+    public Object numbers () {
+        return conn.execute(NUMBERS);
+    }
+
+    @Benchmark
+    public Object numbersColumns () {
+        return conn.execute(NUMBERS, columnsParams);
+    }
+
+    @Benchmark
+    public Object copyOut () {
+        return conn.copy(COPY_OUT, copyOutParams);
+    }
+
+    @Benchmark
+    public Object copyIn () {
+        return conn.copy(COPY_IN, copyInParams);
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.igrishaev.bench;
+
+import com.github.igrishaev.ExecuteParams;
+import com.github.igrishaev.codec.CodecParams;
+import com.github.igrishaev.copy.Copy;
+import com.github.igrishaev.enums.OID;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// COPY IN rows, the score is ns per row
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CopyBench {
+
+    private static final List<OID> OIDs = List.of(
+            OID.INT8, OID.TEXT, OID.NUMERIC, OID.TIMESTAMPTZ, OID.BOOL, OID.UUID
+    );
+
+    private List<Object> row;
+    private ExecuteParams executeParams;
+    private final CodecParams codecParams = CodecParams.standard();
+
+    @Setup
+    public void setup () {
+        row = new ArrayList<>(OIDs.size());
+        for (final OID oid: OIDs) {
+            row.add(Wire.sample(oid));
+        }
+        row.set(1, "a \"quoted\" value, with a comma");
+        executeParams = ExecuteParams.builder().OIDs(OIDs).build();
+    }
+
+    @Benchmark
+    public Object encodeRowCSV () {
+        return Copy.encodeRowCSV(row, executeParams, codecParams);
+    }
+
+    @Benchmark
+    public Object encodeRowBin () {
+        return Copy.encodeRowBin(row, executeParams, codecParams);
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.igrishaev.bench;
+
+import com.github.igrishaev.codec.DateTimeBin;
+import com.github.igrishaev.codec.DateTimeTxt;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+// the strings are in the server's ISO DateStyle, the score is ns per value
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateTimeBench {
+
+    private final OffsetDateTime timestamptz =
+            OffsetDateTime.of(2023, 10, 18, 13, 45, 21, 123456000, ZoneOffset.ofHours(3));
+    private final LocalDateTime timestamp = timestamptz.toLocalDateTime();
+    private final LocalDate date = timestamptz.toLocalDate();
+
+    private final String timestamptzTxt = "2023-10-18 13:45:21.123456+03";
+    private final String timestampTxt = "2023-10-18 13:45:21.123456";
+    private final String dateTxt = "2023-10-18";
+
+    private ByteBuffer timestamptzBin;
+    private ByteBuffer timestampBin;
+    private ByteBuffer dateBin;
+
+    @Setup
+    public void setup () {
+        timestamptzBin = DateTimeBin.encodeTIMESTAMPTZ(timestamptz);
+        timestampBin = DateTimeBin.encodeTIMESTAMP(timestamp.toInstant(ZoneOffset.UTC));
+        dateBin = DateTimeBin.encodeDATE(date);
+    }
+
+    @Benchmark
+    public Object decodeTimestamptzTxt () {
+        return DateTimeTxt.decodeTIMESTAMPTZ(timestamptzTxt);
+    }
+
+    @Benchmark
+    public Object decodeTimestampTxt () {
+        return DateTimeTxt.decodeTIMESTAMP(timestampTxt);
+    }
+
+    @Benchmark
+    public Object decodeDateTxt () {
+        return DateTimeTxt.decodeDATE(dateTxt);
+    }
+
+    @Benchmark
+    public Object encodeTimestamptzTxt () {
+        return DateTimeTxt.encodeTIMESTAMPTZ(timestamptz);
+    }
+
+    @Benchmark
+    public Object encodeTimestampTxt () {
+        return DateTimeTxt.encodeTIMESTAMP(timestamp);
+    }
+
+    @Benchmark
+    public Object encodeDateTxt () {
+        return DateTimeTxt.encodeDATE(date);
+    }
+
+    @Benchmark
+    public Object decodeTimestamptzBin () {
+        timestamptzBin.rewind();
+        return DateTimeBin.decodeTIMESTAMPTZ(timestamptzBin);
+    }
+
+    @Benchmark
+    public Object decodeTimestampBin () {
+        timestampBin.rewind();
+        return DateTimeBin.decodeTIMESTAMP(timestampBin);
+    }
+
+    @Benchmark
+    public Object decodeDateBin () {
+        dateBin.rewind();
+        return DateTimeBin.decodeDATE(dateBin);
+    }
+
+    @Benchmark
+    public Object encodeTimestamptzBin () {
+        return DateTimeBin.encodeTIMESTAMPTZ(timestamptz);
+    }
+
+    @Benchmark
+    public Object encodeTimestampBin () {
+        return DateTimeBin.encodeTIMESTAMP(timestamp.toInstant(ZoneOffset.UTC));
+    }
+
+    @Benchmark
+    public Object encodeDateBin () {
+        return DateTimeBin.encodeDATE(date);
+    }
+}
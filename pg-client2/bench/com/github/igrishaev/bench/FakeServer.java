@@ -0,0 +1,665 @@
+package com.github.igrishaev.bench;
+
+import com.github.igrishaev.codec.EncoderTxt;
+import com.github.igrishaev.enums.Format;
+import com.github.igrishaev.enums.OID;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// An in-process backend that speaks just enough of the v3 protocol for
+// benchmarks: trust auth, simple and extended queries, COPY TO STDOUT
+// and FROM STDIN.
+// Every SELECT returns a canned result whose rows are encoded once, so
+// the server side costs a memory copy per row.
+public class FakeServer implements Closeable {
+
+    public record Column (String name, OID oid) {}
+
+    public static final class Result {
+
+        private final List<Column> columns;
+        private final byte[][] rowsTxt;
+        private final byte[][] rowsBin;
+        private final byte[][] copyLines;
+        private final byte[] descTxt;
+        private final byte[] descBin;
+
+        public Result (final List<Column> columns, final List<Object[]> rows) {
+            this.columns = columns;
+            this.rowsTxt = new byte[rows.size()][];
+            this.rowsBin = new byte[rows.size()][];
+            this.copyLines = new byte[rows.size()][];
+            for (int i = 0; i < rows.size(); i++) {
+                final Object[] row = rows.get(i);
+                rowsTxt[i] = dataRow(row, Format.TXT);
+                rowsBin[i] = dataRow(row, Format.BIN);
+                copyLines[i] = copyLine(row);
+            }
+            this.descTxt = rowDescription(Format.TXT);
+            this.descBin = rowDescription(Format.BIN);
+        }
+
+        public int size () {
+            return rowsTxt.length;
+        }
+
+        private byte[] rowDescription (final Format format) {
+            final List<String> names = new ArrayList<>(columns.size());
+            final List<OID> OIDs = new ArrayList<>(columns.size());
+            for (final Column column: columns) {
+                names.add(column.name());
+                OIDs.add(column.oid());
+            }
+            return Wire.frame('T', Wire.rowDescription(names, OIDs, format));
+        }
+
+        private byte[] dataRow (final Object[] row, final Format format) {
+            final List<OID> OIDs = new ArrayList<>(columns.size());
+            for (final Column column: columns) {
+                OIDs.add(column.oid());
+            }
+            return Wire.frame('D', Wire.dataRow(Arrays.asList(row), OIDs, format));
+        }
+
+        private byte[] copyLine (final Object[] row) {
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    sb.append('\t');
+                }
+                final Object value = row[i];
+                sb.append(value == null ? "\\N" : EncoderTxt.encode(value, columns.get(i).oid()));
+            }
+            sb.append('\n');
+            return Wire.frame('d', sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static byte[] message (final char tag, final String... cstrings) {
+        final Wire.Writer out = new Wire.Writer();
+        for (final String s: cstrings) {
+            out.putCString(s);
+        }
+        return Wire.frame(tag, out.toBytes());
+    }
+
+    private static byte[] empty (final char tag) {
+        return Wire.frame(tag, new byte[0]);
+    }
+
+    private static final byte[] PARSE_COMPLETE = empty('1');
+    private static final byte[] BIND_COMPLETE = empty('2');
+    private static final byte[] CLOSE_COMPLETE = empty('3');
+    private static final byte[] NO_DATA = empty('n');
+    private static final byte[] EMPTY_QUERY = empty('I');
+    private static final byte[] PORTAL_SUSPENDED = empty('s');
+    private static final byte[] COPY_DONE = empty('c');
+
+    private final ServerSocket serverSocket;
+    private final Thread acceptor;
+    private final Map<String, Result> results;
+    private volatile Result defaultResult;
+    private final AtomicInteger pidCounter = new AtomicInteger(1000);
+    private final List<Socket> clients = new ArrayList<>();
+    private final Map<Integer, Socket> sockets = new ConcurrentHashMap<>();
+    private volatile boolean isClosed = false;
+
+    public FakeServer () {
+        this(0);
+    }
+
+    public FakeServer (final int port) {
+        try {
+            serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot bind the fake server", e);
+        }
+        results = new ConcurrentHashMap<>();
+        defaultResult = new Result(List.of(new Column("one", OID.INT4)), List.<Object[]>of(new Object[] {1}));
+        acceptor = new Thread(this::acceptLoop, "fake-pg-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    // like pg_terminate_backend: a FATAL error, then the socket is closed
+    public void terminate (final int pid, final boolean sendError) throws IOException {
+        final Socket socket = sockets.remove(pid);
+        if (socket == null) {
+            return;
+        }
+        if (sendError) {
+            socket.getOutputStream().write(message('E', "SFATAL", "VFATAL", "C57P01",
+                    "Mterminating connection due to administrator command", ""));
+            socket.getOutputStream().flush();
+        }
+        socket.shutdownOutput();
+    }
+
+    public int getPort () {
+        return serverSocket.getLocalPort();
+    }
+
+    public void setDefaultResult (final Result result) {
+        defaultResult = result;
+    }
+
+    // a result for an exact SQL text
+    public void setResult (final String sql, final Result result) {
+        results.put(sql, result);
+    }
+
+    // one int4 column "x" with the values 1..n
+    public static Result series (final int n) {
+        final List<Object[]> rows = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            rows.add(new Object[] {i});
+        }
+        return new Result(List.of(new Column("x", OID.INT4)), rows);
+    }
+
+    private void acceptLoop () {
+        while (!isClosed) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                return;
+            }
+            synchronized (clients) {
+                clients.add(socket);
+            }
+            final Thread thread = new Thread(() -> serve(socket), "fake-pg-conn");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    @Override
+    public void close () {
+        isClosed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        synchronized (clients) {
+            for (final Socket socket: clients) {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private record Statement (String sql, int[] OIDs) {}
+
+    private static final class Portal {
+        private final String sql;
+        private final boolean binary;
+        private int position = 0;
+
+        private Portal (final String sql, final boolean binary) {
+            this.sql = sql;
+            this.binary = binary;
+        }
+    }
+
+    // per connection state
+    private final class Session {
+
+        private final DataInputStream in;
+        private final BufferedOutputStream out;
+        private final Map<String, Statement> statements = new HashMap<>();
+        private final Map<String, Portal> portals = new HashMap<>();
+        private char txStatus = 'I';
+        // COPY FROM STDIN in progress: the rows received so far, or -1
+        private long copyInRows = -1;
+        private byte[] buf = new byte[0x10000];
+        private boolean skipTillSync = false;
+
+        private final Socket socket;
+
+        private Session (final Socket socket) throws IOException {
+            this.socket = socket;
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 0xFFFF));
+            out = new BufferedOutputStream(socket.getOutputStream(), 0xFFFF);
+        }
+
+        private void send (final byte[] frame) throws IOException {
+            out.write(frame);
+        }
+
+        private boolean startup () throws IOException {
+            while (true) {
+                final int len = in.readInt();
+                final int code = in.readInt();
+                final byte[] rest = new byte[len - 8];
+                in.readFully(rest);
+                if (code == 80877103) {
+                    out.write('N');
+                    out.flush();
+                    continue;
+                }
+                if (code == 80877102) {
+                    return false;
+                }
+                break;
+            }
+            send(Wire.frame('R', new Wire.Writer().putInt(0).toBytes()));
+            send(message('S', "server_encoding", "UTF8"));
+            send(message('S', "client_encoding", "UTF8"));
+            send(message('S', "DateStyle", "ISO, MDY"));
+            send(message('S', "TimeZone", "UTC"));
+            send(message('S', "integer_datetimes", "on"));
+            send(message('S', "server_version", "16.0"));
+            final int pid = pidCounter.incrementAndGet();
+            sockets.put(pid, socket);
+            send(Wire.frame('K', new Wire.Writer().putInt(pid).putInt(42).toBytes()));
+            readyForQuery();
+            out.flush();
+            return true;
+        }
+
+        private void readyForQuery () throws IOException {
+            send(Wire.frame('Z', new Wire.Writer().putByte(txStatus).toBytes()));
+        }
+
+        private void error (final String message) throws IOException {
+            send(message('E', "SERROR", "VERROR", "C42601", "M" + message, ""));
+            if (txStatus == 'T') {
+                txStatus = 'E';
+            }
+        }
+
+        private Result resultFor (final String sql) {
+            final Result result = results.get(sql);
+            return result == null ? defaultResult : result;
+        }
+
+        private static String lead (final String sql) {
+            final String trimmed = sql.strip();
+            final int space = trimmed.indexOf(' ');
+            final String word = space == -1 ? trimmed : trimmed.substring(0, space);
+            return word.replace(";", "").toUpperCase(Locale.ROOT);
+        }
+
+        private boolean isRowQuery (final String lead) {
+            return lead.equals("SELECT") || lead.equals("WITH") || lead.equals("VALUES") || lead.equals("TABLE");
+        }
+
+        // non-SELECT commands: returns the tag or null on error
+        private String command (final String lead) {
+            switch (lead) {
+                case "BEGIN" -> {
+                    txStatus = 'T';
+                    return "BEGIN";
+                }
+                case "COMMIT", "END" -> {
+                    final String tag = txStatus == 'E' ? "ROLLBACK" : "COMMIT";
+                    txStatus = 'I';
+                    return tag;
+                }
+                case "ROLLBACK", "ABORT" -> {
+                    txStatus = 'I';
+                    return "ROLLBACK";
+                }
+                case "INSERT" -> {
+                    return "INSERT 0 1";
+                }
+                case "UPDATE" -> {
+                    return "UPDATE 1";
+                }
+                case "DELETE" -> {
+                    return "DELETE 1";
+                }
+                default -> {
+                    return lead;
+                }
+            }
+        }
+
+        private boolean checkTx () throws IOException {
+            if (txStatus == 'E') {
+                send(message('E', "SERROR", "VERROR", "C25P02",
+                        "Mcurrent transaction is aborted, commands ignored until end of transaction block", ""));
+                return false;
+            }
+            return true;
+        }
+
+        private void simpleQuery (final String sql) throws IOException {
+            final String lead = lead(sql);
+            if (lead.isEmpty()) {
+                send(EMPTY_QUERY);
+            }
+            else if (lead.equals("COPY") && sql.toUpperCase(Locale.ROOT).contains("FROM STDIN")) {
+                copyIn();
+                return;
+            }
+            else if (lead.equals("COPY")) {
+                copyOut(sql);
+            }
+            else if (lead.equals("SELEKT") || lead.equals("ERROR")) {
+                error("syntax error at or near \"" + lead.toLowerCase(Locale.ROOT) + "\"");
+            }
+            else if (!lead.equals("ROLLBACK") && !lead.equals("COMMIT") && !checkTx()) {
+                // nothing
+            }
+            else if (isRowQuery(lead)) {
+                final Result result = resultFor(sql);
+                send(result.descTxt);
+                for (final byte[] row: result.rowsTxt) {
+                    send(row);
+                }
+                send(message('C', "SELECT " + result.size()));
+            }
+            else {
+                send(message('C', command(lead)));
+            }
+            readyForQuery();
+            out.flush();
+        }
+
+        // the client sends CopyData messages until CopyDone or CopyFail
+        private void copyIn () throws IOException {
+            final Wire.Writer out = new Wire.Writer().putByte(0).putShort(0);
+            send(Wire.frame('G', out.toBytes()));
+            this.out.flush();
+            copyInRows = 0;
+        }
+
+        private void copyInMessage (final char tag, final ByteBuffer body) throws IOException {
+            switch (tag) {
+                case 'd' -> {
+                    for (int i = 0; i < body.limit(); i++) {
+                        if (body.get(i) == '\n') {
+                            copyInRows++;
+                        }
+                    }
+                }
+                case 'c' -> {
+                    send(message('C', "COPY " + copyInRows));
+                    copyInRows = -1;
+                    readyForQuery();
+                    out.flush();
+                }
+                case 'f' -> {
+                    copyInRows = -1;
+                    send(message('E', "SERROR", "VERROR", "C57014", "MCOPY from stdin failed: " + cstring(body), ""));
+                    readyForQuery();
+                    out.flush();
+                }
+                // Flush and Sync mean nothing during COPY
+                default -> {}
+            }
+        }
+
+        private void copyOut (final String sql) throws IOException {
+            final Result result = resultFor(sql);
+            final Wire.Writer out = new Wire.Writer().putByte(0).putShort(result.columns.size());
+            for (int i = 0; i < result.columns.size(); i++) {
+                out.putShort(0);
+            }
+            send(Wire.frame('H', out.toBytes()));
+            for (final byte[] line: result.copyLines) {
+                send(line);
+            }
+            send(COPY_DONE);
+            send(message('C', "COPY " + result.size()));
+        }
+
+        private void parse (final ByteBuffer body) throws IOException {
+            final String name = cstring(body);
+            final String sql = cstring(body);
+            final int count = body.getShort() & 0xFFFF;
+            final int[] OIDs = new int[count];
+            for (int i = 0; i < count; i++) {
+                OIDs[i] = body.getInt();
+            }
+            if (lead(sql).equals("SELEKT") || lead(sql).equals("ERROR")) {
+                error("syntax error at or near \"" + lead(sql).toLowerCase(Locale.ROOT) + "\"");
+                skipTillSync = true;
+                return;
+            }
+            statements.put(name, new Statement(sql, paramOIDs(sql, OIDs)));
+            send(PARSE_COMPLETE);
+        }
+
+        private void bind (final ByteBuffer body) throws IOException {
+            final String portal = cstring(body);
+            final String name = cstring(body);
+            final int formatCount = body.getShort();
+            for (int i = 0; i < formatCount; i++) {
+                body.getShort();
+            }
+            final int valueCount = body.getShort() & 0xFFFF;
+            for (int i = 0; i < valueCount; i++) {
+                final int len = body.getInt();
+                if (len > 0) {
+                    body.position(body.position() + len);
+                }
+            }
+            final int resultFormatCount = body.getShort();
+            boolean binary = false;
+            for (int i = 0; i < resultFormatCount; i++) {
+                binary = body.getShort() == 1;
+            }
+            final Statement stmt = statements.get(name);
+            if (stmt == null) {
+                error("prepared statement \"" + name + "\" does not exist");
+                skipTillSync = true;
+                return;
+            }
+            portals.put(portal, new Portal(stmt.sql(), binary));
+            send(BIND_COMPLETE);
+        }
+
+        private void describe (final ByteBuffer body) throws IOException {
+            final char type = (char) body.get();
+            final String name = cstring(body);
+            final String sql;
+            final boolean binary;
+            if (type == 'S') {
+                final Statement stmt = statements.get(name);
+                if (stmt == null) {
+                    error("prepared statement \"" + name + "\" does not exist");
+                    skipTillSync = true;
+                    return;
+                }
+                final Wire.Writer out = new Wire.Writer().putShort(stmt.OIDs().length);
+                for (final int oid: stmt.OIDs()) {
+                    out.putInt(oid == 0 ? OID.TEXT.toInt() : oid);
+                }
+                send(Wire.frame('t', out.toBytes()));
+                sql = stmt.sql();
+                binary = false;
+            }
+            else {
+                final Portal portal = portals.get(name);
+                if (portal == null) {
+                    error("portal \"" + name + "\" does not exist");
+                    skipTillSync = true;
+                    return;
+                }
+                sql = portal.sql;
+                binary = portal.binary;
+            }
+            if (isRowQuery(lead(sql))) {
+                final Result result = resultFor(sql);
+                send(binary ? result.descBin : result.descTxt);
+            }
+            else {
+                send(NO_DATA);
+            }
+        }
+
+        private void execute (final ByteBuffer body) throws IOException {
+            final String name = cstring(body);
+            final int maxRows = body.getInt();
+            final Portal portal = portals.get(name);
+            if (portal == null) {
+                error("portal \"" + name + "\" does not exist");
+                skipTillSync = true;
+                return;
+            }
+            final String lead = lead(portal.sql);
+            if (!lead.equals("ROLLBACK") && !lead.equals("COMMIT") && !checkTx()) {
+                skipTillSync = true;
+                return;
+            }
+            if (lead.isEmpty()) {
+                send(EMPTY_QUERY);
+                return;
+            }
+            if (!isRowQuery(lead)) {
+                send(message('C', command(lead)));
+                return;
+            }
+            final Result result = resultFor(portal.sql);
+            final byte[][] rows = portal.binary ? result.rowsBin : result.rowsTxt;
+            final int total = rows.length;
+            final int end = maxRows > 0 ? Math.min(total, portal.position + maxRows) : total;
+            final int start = portal.position;
+            for (int i = start; i < end; i++) {
+                send(rows[i]);
+            }
+            portal.position = end;
+            if (maxRows > 0 && end < total) {
+                send(PORTAL_SUSPENDED);
+            }
+            else {
+                send(message('C', "SELECT " + (end - start)));
+            }
+        }
+
+        private void closeMessage (final ByteBuffer body) throws IOException {
+            final char type = (char) body.get();
+            final String name = cstring(body);
+            if (type == 'S') {
+                statements.remove(name);
+            }
+            else {
+                portals.remove(name);
+            }
+            send(CLOSE_COMPLETE);
+        }
+
+        private void sync () throws IOException {
+            skipTillSync = false;
+            portals.remove("");
+            if (txStatus == 'I') {
+                portals.clear();
+            }
+            readyForQuery();
+            out.flush();
+        }
+
+        private void loop () throws IOException {
+            while (true) {
+                final char tag = (char) in.readUnsignedByte();
+                final int len = in.readInt() - 4;
+                if (len > buf.length) {
+                    buf = new byte[len];
+                }
+                in.readFully(buf, 0, len);
+                final ByteBuffer body = ByteBuffer.wrap(buf, 0, len);
+                if (tag == 'X') {
+                    return;
+                }
+                if (copyInRows >= 0) {
+                    copyInMessage(tag, body);
+                    continue;
+                }
+                if (tag == 'S') {
+                    sync();
+                    continue;
+                }
+                if (tag == 'H') {
+                    out.flush();
+                    continue;
+                }
+                if (tag == 'Q') {
+                    simpleQuery(cstring(body));
+                    continue;
+                }
+                if (skipTillSync) {
+                    continue;
+                }
+                switch (tag) {
+                    case 'P' -> parse(body);
+                    case 'B' -> bind(body);
+                    case 'D' -> describe(body);
+                    case 'E' -> execute(body);
+                    case 'C' -> closeMessage(body);
+                    default -> {
+                        error("unsupported message: " + tag);
+                        skipTillSync = true;
+                    }
+                }
+            }
+        }
+    }
+
+    // the highest $N in the query decides the parameter count
+    private static int[] paramOIDs (final String sql, final int[] OIDs) {
+        int max = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) == '$') {
+                int j = i + 1;
+                int n = 0;
+                while (j < sql.length() && Character.isDigit(sql.charAt(j))) {
+                    n = n * 10 + (sql.charAt(j) - '0');
+                    j++;
+                }
+                max = Math.max(max, n);
+            }
+        }
+        final int[] result = new int[Math.max(max, OIDs.length)];
+        System.arraycopy(OIDs, 0, result, 0, OIDs.length);
+        return result;
+    }
+
+    private static String cstring (final ByteBuffer buf) {
+        final int start = buf.position();
+        int end = start;
+        while (buf.get(end) != 0) {
+            end++;
+        }
+        buf.position(end + 1);
+        return new String(buf.array(), start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private void serve (final Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            final Session session = new Session(socket);
+            if (session.startup()) {
+                session.loop();
+            }
+        } catch (EOFException | SocketException ignored) {
+        } catch (IOException e) {
+            if (!isClosed) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
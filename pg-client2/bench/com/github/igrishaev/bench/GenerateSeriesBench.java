@@ -0,0 +1,44 @@
+package com.github.igrishaev.bench;
+
+import com.github.igrishaev.Connection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// the score is rows per second
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GenerateSeriesBench {
+
+    private static final int ROWS = 1000000;
+    private static final String SQL =
+            "select x from generate_series(1, " + ROWS + ") as s(x)";
+
+    private Connection conn;
+
+    @Setup
+    public void setup () {
+        conn = new Connection(BenchConfig.config());
+    }
+
+    @TearDown
+    public void tearDown () {
+        conn.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public Object query () {
+        return conn.query(SQL);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public Object execute () {
+        return conn.execute(SQL);
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.igrishaev.bench;
+
+import com.github.igrishaev.enums.Format;
+import com.github.igrishaev.enums.OID;
+import com.github.igrishaev.msg.DataRow;
+import com.github.igrishaev.msg.RowDescription;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// parsing of incoming message bodies, the score is ns per message
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBench {
+
+    private static final OID[] TYPES = {
+            OID.INT4, OID.INT8, OID.TEXT, OID.TIMESTAMPTZ, OID.NUMERIC, OID.BOOL, OID.UUID
+    };
+
+    @Param({"1", "10", "50"})
+    public int columns;
+
+    @Param({"TXT", "BIN"})
+    public String format;
+
+    private ByteBuffer rowDescription;
+    private ByteBuffer dataRow;
+    private final DataRow sharedDataRow = new DataRow();
+    private final Charset charset = StandardCharsets.UTF_8;
+
+    @Setup
+    public void setup () {
+        final Format fmt = Format.valueOf(format);
+        final List<OID> OIDs = new ArrayList<>(columns);
+        final List<Object> values = new ArrayList<>(columns);
+        for (int i = 0; i < columns; i++) {
+            final OID oid = TYPES[i % TYPES.length];
+            OIDs.add(oid);
+            values.add(Wire.sample(oid));
+        }
+        rowDescription = ByteBuffer.wrap(Wire.rowDescription(Wire.columnNames(columns), OIDs, fmt));
+        dataRow = ByteBuffer.wrap(Wire.dataRow(values, OIDs, fmt));
+    }
+
+    @Benchmark
+    public Object rowDescription () {
+        rowDescription.rewind();
+        return RowDescription.fromByteBuffer(rowDescription, charset);
+    }
+
+    @Benchmark
+    public Object dataRowFromByteBuffer () {
+        dataRow.rewind();
+        return DataRow.fromByteBuffer(dataRow);
+    }
+
+    // the way the connection reads rows
+    @Benchmark
+    public Object dataRowShared () {
+        dataRow.rewind();
+        return sharedDataRow.read(dataRow);
+    }
+}
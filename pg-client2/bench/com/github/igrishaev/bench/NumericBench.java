@@ -0,0 +1,48 @@
+package com.github.igrishaev.bench;
+
+import com.github.igrishaev.codec.NumericBin;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// numeric values of different shapes, the score is ns per value
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumericBench {
+
+    @Param({
+            "0",
+            "42",
+            "-1234567890123",
+            "3.14159",
+            "0.000001234",
+            "123456789012345678901234567890.123456789"
+    })
+    public String number;
+
+    private BigDecimal value;
+    private ByteBuffer bin;
+
+    @Setup
+    public void setup () {
+        value = new BigDecimal(number);
+        bin = NumericBin.encode(value);
+    }
+
+    @Benchmark
+    public Object encode () {
+        return NumericBin.encode(value);
+    }
+
+    @Benchmark
+    public Object decode () {
+        bin.rewind();
+        return NumericBin.decode(bin);
+    }
+}
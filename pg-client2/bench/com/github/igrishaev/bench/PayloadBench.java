@@ -0,0 +1,81 @@
+package com.github.igrishaev.bench;
+
+import com.github.igrishaev.Const;
+import com.github.igrishaev.Payload;
+import com.github.igrishaev.enums.Format;
+import com.github.igrishaev.enums.OID;
+import com.github.igrishaev.msg.Bind;
+import com.github.igrishaev.msg.Execute;
+import com.github.igrishaev.msg.Parse;
+import com.github.igrishaev.msg.Query;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// encoding of outgoing messages, the score is ns per message
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadBench {
+
+    private static final String SQL =
+            "select id, name, email, created_at from users where id = $1 and status = $2";
+
+    private final Charset charset = StandardCharsets.UTF_8;
+    private final Payload payload = new Payload(Const.OUT_PAYLOAD_SIZE);
+    private final Query query = new Query(SQL);
+    private final Parse parse = new Parse("s1", SQL, new OID[] {OID.INT4, OID.TEXT});
+    private final Execute execute = new Execute("p1", 0);
+    private Bind bind;
+
+    @Setup
+    public void setup () {
+        final byte[][] values = new byte[10][];
+        final OID[] OIDs = new OID[10];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Wire.encode(Wire.sample(OID.INT8), OID.INT8, Format.BIN);
+            OIDs[i] = OID.INT8;
+        }
+        bind = new Bind("p1", "s1", values, OIDs, Format.BIN, Format.BIN);
+    }
+
+    // the connection's way: one payload for all messages
+    @Benchmark
+    public int query () {
+        payload.clear();
+        query.encode(payload, charset);
+        return payload.size();
+    }
+
+    @Benchmark
+    public int parse () {
+        payload.clear();
+        parse.encode(payload, charset);
+        return payload.size();
+    }
+
+    @Benchmark
+    public int bind () {
+        payload.clear();
+        bind.encode(payload, charset);
+        return payload.size();
+    }
+
+    @Benchmark
+    public int execute () {
+        payload.clear();
+        execute.encode(payload, charset);
+        return payload.size();
+    }
+
+    // a fresh buffer per message
+    @Benchmark
+    public Object queryToByteBuffer () {
+        return query.encode(charset);
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.igrishaev.bench;
+
+import com.github.igrishaev.Connection;
+import com.github.igrishaev.PGError;
+import com.github.igrishaev.pool.Pool;
+import com.github.igrishaev.pool.PoolConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Borrow/return cycles with no queries: the score is the pool overhead.
+// When there are more threads than connections, borrowers wait in the
+// queue; a borrow that times out counts as an operation too.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PoolBench {
+
+    @Param({"16"})
+    public int maxSize;
+
+    @Param({"1000"})
+    public int acquireTimeout;
+
+    private Pool pool;
+
+    @Setup
+    public void setup () {
+        pool = new Pool(
+                BenchConfig.config(),
+                PoolConfig.builder()
+                        .minSize(maxSize)
+                        .maxSize(maxSize)
+                        .acquireTimeout(acquireTimeout)
+                        .build()
+        );
+    }
+
+    @TearDown
+    public void tearDown () {
+        pool.close();
+    }
+
+    private Object cycle () {
+        final Connection conn;
+        try {
+            conn = pool.borrowConnection();
+        }
+        catch (PGError e) {
+            return e;
+        }
+        pool.returnConnection(conn);
+        return conn;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object threads1 () {
+        return cycle();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object threads8 () {
+        return cycle();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Object threads64 () {
+        return cycle();
+    }
+
+    @Benchmark
+    @Threads(256)
+    public Object threads256 () {
+        return cycle();
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.igrishaev.bench;
+
+import clojure.lang.AFn;
+import clojure.lang.IFn;
+import clojure.lang.Keyword;
+import com.github.igrishaev.ExecuteParams;
+import com.github.igrishaev.reducer.Dummy;
+import com.github.igrishaev.reducer.IReducer;
+import com.github.igrishaev.reducer.RowLayout;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Builds a result of ROWS rows the way Accum does: compose, append,
+// finalize. The values are ready, so only the reducer is measured.
+// The score is ns per row.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReducerBench {
+
+    private static final int ROWS = 1000;
+
+    @Param({
+            "default", "dummy", "java", "matrix", "first", "fold",
+            "group-by", "index-by", "kv", "run"
+    })
+    public String reducer;
+
+    private IReducer iReducer;
+    private RowLayout layout;
+    private Object[][] rows;
+
+    private static final IFn fnFold = new AFn() {
+        @Override
+        public Object invoke (final Object acc, final Object row) {
+            return (Long) acc + 1;
+        }
+    };
+
+    private static final IFn fnRun = new AFn() {
+        @Override
+        public Object invoke (final Object row) {
+            return null;
+        }
+    };
+
+    @Setup
+    public void setup () {
+        final Keyword id = Keyword.intern("id");
+        final Keyword group = Keyword.intern("group");
+        final ExecuteParams.Builder builder = ExecuteParams.builder();
+        switch (reducer) {
+            case "dummy" -> builder.reducer(Dummy.INSTANCE);
+            case "java" -> builder.asJava();
+            case "matrix" -> builder.asMatrix();
+            case "first" -> builder.first();
+            case "fold" -> builder.fold(fnFold, 0L);
+            case "group-by" -> builder.groupBy(group);
+            case "index-by" -> builder.indexBy(id);
+            case "kv" -> builder.KV(id, group);
+            case "run" -> builder.run(fnRun);
+            default -> {}
+        }
+        iReducer = builder.build().reducer();
+        layout = new RowLayout(new Object[] {
+                id, group, Keyword.intern("name"), Keyword.intern("email"), Keyword.intern("score")
+        });
+        rows = new Object[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = new Object[] {i, i % 10, "name " + i, "user" + i + "@example.com", i * 1.5};
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public Object reduce () {
+        Object acc = iReducer.initiate();
+        for (final Object[] values: rows) {
+            acc = iReducer.append(acc, iReducer.compose(layout, values));
+        }
+        return iReducer.finalize(acc);
+    }
+}
@@ -0,0 +1,157 @@
+package com.github.igrishaev.bench;
+
+import com.github.igrishaev.codec.EncoderBin;
+import com.github.igrishaev.codec.EncoderTxt;
+import com.github.igrishaev.enums.Format;
+import com.github.igrishaev.enums.OID;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Message bodies laid out byte for byte as the server sends them, so the
+// benchmarks need no database. The values are encoded with the client's
+// own codecs, which the codec tests check against a real server.
+public class Wire {
+
+    // a typical value per type
+    public static Object sample (final OID oid) {
+        return switch (oid) {
+            case INT2 -> (short) 12345;
+            case INT4 -> 123456789;
+            case INT8 -> 1234567890123456789L;
+            case FLOAT4 -> 3.1415927f;
+            case FLOAT8 -> 2.718281828459045;
+            case NUMERIC -> new BigDecimal("123456789.987654321");
+            case BOOL -> true;
+            case TEXT, VARCHAR -> "The quick brown fox jumps over the lazy dog";
+            case UUID -> UUID.fromString("6f1c2c8e-1d4b-4f5e-9a2c-3b8e7d6c5a41");
+            case DATE -> LocalDate.of(2023, 10, 18);
+            case TIME -> LocalTime.of(13, 45, 21, 123456000);
+            case TIMETZ -> OffsetTime.of(13, 45, 21, 123456000, ZoneOffset.ofHours(3));
+            case TIMESTAMP -> LocalDateTime.of(2023, 10, 18, 13, 45, 21, 123456000);
+            case TIMESTAMPTZ -> OffsetDateTime.of(2023, 10, 18, 13, 45, 21, 123456000, ZoneOffset.UTC);
+            case BYTEA -> new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+            default -> throw new IllegalArgumentException("no sample for " + oid);
+        };
+    }
+
+    public static byte[] encode (final Object value, final OID oid, final Format format) {
+        if (format == Format.BIN) {
+            final ByteBuffer buf = EncoderBin.encode(value, oid);
+            final byte[] bytes = new byte[buf.limit()];
+            buf.rewind().get(bytes);
+            return bytes;
+        }
+        return EncoderTxt.encode(value, oid).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // the body of a RowDescription message
+    public static byte[] rowDescription (final List<String> names, final List<OID> OIDs, final Format format) {
+        final Writer out = new Writer();
+        out.putShort(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            out.putCString(names.get(i));
+            out.putInt(0);
+            out.putShort(i + 1);
+            out.putInt(OIDs.get(i).toInt());
+            out.putShort(-1);
+            out.putInt(-1);
+            out.putShort(format == Format.BIN ? 1 : 0);
+        }
+        return out.toBytes();
+    }
+
+    // the body of a DataRow message
+    public static byte[] dataRow (final List<Object> values, final List<OID> OIDs, final Format format) {
+        final Writer out = new Writer();
+        out.putShort(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            final Object value = values.get(i);
+            if (value == null) {
+                out.putInt(-1);
+            }
+            else {
+                final byte[] bytes = encode(value, OIDs.get(i), format);
+                out.putInt(bytes.length);
+                out.putBytes(bytes);
+            }
+        }
+        return out.toBytes();
+    }
+
+    // a whole message: the tag, the length and the body
+    public static byte[] frame (final char tag, final byte[] body) {
+        return ByteBuffer.allocate(5 + body.length)
+                .put((byte) tag)
+                .putInt(4 + body.length)
+                .put(body)
+                .array();
+    }
+
+    public static List<String> columnNames (final int count) {
+        final List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add("column_" + i);
+        }
+        return names;
+    }
+
+    static final class Writer {
+
+        private ByteBuffer buf = ByteBuffer.allocate(256);
+
+        private void ensure (final int size) {
+            if (buf.remaining() < size) {
+                final ByteBuffer next = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + size));
+                buf.flip();
+                next.put(buf);
+                buf = next;
+            }
+        }
+
+        Writer putShort (final int s) {
+            ensure(2);
+            buf.putShort((short) s);
+            return this;
+        }
+
+        Writer putInt (final int i) {
+            ensure(4);
+            buf.putInt(i);
+            return this;
+        }
+
+        Writer putByte (final int b) {
+            ensure(1);
+            buf.put((byte) b);
+            return this;
+        }
+
+        Writer putBytes (final byte[] bytes) {
+            ensure(bytes.length);
+            buf.put(bytes);
+            return this;
+        }
+
+        Writer putCString (final String s) {
+            putBytes(s.getBytes(StandardCharsets.UTF_8));
+            return putByte(0);
+        }
+
+        byte[] toBytes () {
+            final byte[] result = new byte[buf.position()];
+            buf.flip().get(result);
+            return result;
+        }
+    }
+}
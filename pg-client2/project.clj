@@ -40,4 +40,11 @@
      [org.postgresql/postgresql]
      [org.clojure/data.csv]
      [less-awful-ssl]
-     [criterium]]}})
+     [criterium]]}
+
+   :bench
+   {:java-source-paths ["bench"]
+    :main org.openjdk.jmh.Main
+    :dependencies
+    [[org.openjdk.jmh/jmh-core]
+     [org.openjdk.jmh/jmh-generator-annprocess]]}})
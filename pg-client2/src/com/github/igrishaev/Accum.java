@@ -7,29 +7,46 @@ import com.github.igrishaev.auth.ScramSha256;
 import com.github.igrishaev.enums.Phase;
 import com.github.igrishaev.msg.*;
 import com.github.igrishaev.reducer.IReducer;
+import com.github.igrishaev.reducer.IRowReducer;
+import com.github.igrishaev.reducer.LazyValues;
+import com.github.igrishaev.reducer.RowLayout;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 
 public class Accum {
 
      public static class Node {
 
+         private final ExecuteParams executeParams;
          private CopyOutResponse copyOutResponse;
          private PortalSuspended portalSuspended;
          private RowDescription rowDescription;
          private CommandComplete commandComplete;
          private ParseComplete parseComplete;
          private ParameterDescription parameterDescription;
+         private boolean isEmptyQuery;
          private Object[] keys;
+         private RowLayout layout;
          private Object acc;
 
+         private Node(final ExecuteParams executeParams) {
+             this.executeParams = executeParams;
+         }
+
          private boolean isComplete() {
-             return commandComplete != null || portalSuspended != null;
+             return commandComplete != null || portalSuspended != null || isEmptyQuery;
          }
 
-         public Object toResult(final ExecuteParams executeParams) {
+         public Object toResult() {
+
+             if (isEmptyQuery) {
+                 return null;
+             }
 
              if (rowDescription != null) {
                  return executeParams.reducer().finalize(acc);
@@ -72,10 +89,14 @@ public class Accum {
 
     public final Phase phase;
     public final ExecuteParams executeParams;
+    private final Iterator<ExecuteParams> nextParams;
     private final ArrayList<Node> nodes;
     private ErrorResponse errorResponse;
     private Node current;
+    private RowDescription lastRowDescription;
+    private boolean isPortalSuspended = false;
     private Throwable exception;
+    private ParallelDecoder decoder;
     public ScramSha256.Pipeline scramPipeline;
 
     public static String[] unifyKeys (final String[] oldKeys) {
@@ -100,10 +121,20 @@ public class Accum {
     public Accum(final Phase phase, final ExecuteParams executeParams) {
         this.phase = phase;
         this.executeParams = executeParams;
+        this.nextParams = null;
         nodes = new ArrayList<>(2);
         addNode();
     }
 
+    // each result gets its own params, e.g. in a pipeline
+    public Accum(final Phase phase, final List<ExecuteParams> executeParamsList) {
+        this.phase = phase;
+        this.executeParams = executeParamsList.get(0);
+        this.nextParams = executeParamsList.iterator();
+        nodes = new ArrayList<>(executeParamsList.size() + 1);
+        addNode();
+    }
+
     public void setException(final Throwable e) {
         this.exception = e;
     }
@@ -112,8 +143,24 @@ public class Accum {
         return exception != null;
     }
 
+    public boolean hasErrorResponse () {
+        return errorResponse != null;
+    }
+
+    // a batch doesn't describe portals so there is nothing to decode rows with
+    public boolean isSkipMode () {
+        return exception != null || phase == Phase.BATCH;
+    }
+
+    public int getCompleteCount () {
+        return nodes.size() - 1;
+    }
+
     public void addErrorResponse (final ErrorResponse msg) {
         errorResponse = msg;
+        if (decoder != null) {
+            decoder.clear();
+        }
     }
 
     public void handleParameterDescription(final ParameterDescription msg) {
@@ -121,7 +168,9 @@ public class Accum {
     }
 
     public void handlePortalSuspended(PortalSuspended msg) {
+        drainDecoded(true);
         current.portalSuspended = msg;
+        isPortalSuspended = true;
         addNode();
     }
 
@@ -133,6 +182,14 @@ public class Accum {
         return current.rowDescription;
     }
 
+    public RowDescription getLastRowDescription () {
+        return lastRowDescription;
+    }
+
+    public boolean isPortalSuspended () {
+        return isPortalSuspended;
+    }
+
     public ParameterDescription getParameterDescription () {
         return current.parameterDescription;
     }
@@ -141,9 +198,15 @@ public class Accum {
         current.parseComplete = msg;
     }
 
+    public void handleEmptyQueryResponse () {
+        current.isEmptyQuery = true;
+        addNode();
+    }
+
     public void handleRowDescription(final RowDescription msg) {
-        current.acc = executeParams.reducer().initiate();
+        final ExecuteParams executeParams = current.executeParams;
         current.rowDescription = msg;
+        lastRowDescription = msg;
         final IFn fnKeyTransform = executeParams.fnKeyTransform();
         final String[] names = unifyKeys(msg.getColumnNames());
         final Object[] keys = new Object[names.length];
@@ -151,21 +214,45 @@ public class Accum {
             keys[i] = fnKeyTransform.invoke(names[i]);
         }
         current.keys = keys;
+        current.layout = new RowLayout(keys);
+        final IReducer reducer = executeParams.reducer();
+        if (reducer instanceof IRowReducer rowReducer) {
+            current.acc = rowReducer.initiate(keys, msg);
+        }
+        else {
+            current.acc = reducer.initiate();
+        }
     }
 
     public void handleCommandComplete (final CommandComplete msg) {
+        drainDecoded(true);
         current.commandComplete = msg;
         addNode();
     }
 
-    // TODO: array?
-    public Object getResult () {
-        final ArrayList<Object> results = new ArrayList<>(1);
+    public List<Object> getResults () {
+        final ArrayList<Object> results = new ArrayList<>(nodes.size());
         for (Node node: nodes) {
             if (node.isComplete()) {
-                results.add(node.toResult(executeParams));
+                results.add(node.toResult());
             }
         }
+        return results;
+    }
+
+    public List<Object> getRowCounts () {
+        final ArrayList<Object> counts = new ArrayList<>(nodes.size());
+        for (Node node: nodes) {
+            if (node.commandComplete != null) {
+                counts.add(node.commandComplete.getRowCount());
+            }
+        }
+        return counts;
+    }
+
+    // TODO: array?
+    public Object getResult () {
+        final List<Object> results = getResults();
         return switch (results.size()) {
             case 0 -> null;
             case 1 -> results.get(0);
@@ -174,13 +261,73 @@ public class Accum {
     }
 
     public void setCurrentValues (final Object[] values) {
-        final IReducer reducer = executeParams.reducer();
-        final Object row = reducer.compose(current.keys, values);
+        final IReducer reducer = current.executeParams.reducer();
+        final Object row = reducer.compose(current.layout, values);
+        current.acc = reducer.append(current.acc, row);
+    }
+
+    public boolean isRowReducer () {
+        return current.executeParams.reducer() instanceof IRowReducer;
+    }
+
+    public boolean isLazy () {
+        return current.executeParams.lazy();
+    }
+
+    public void setCurrentLazyValues (final LazyValues values) {
+        final IReducer reducer = current.executeParams.reducer();
+        final Object row = reducer.compose(current.layout, values);
         current.acc = reducer.append(current.acc, row);
     }
 
+    public boolean isParallelDecode () {
+        return current.executeParams.parallelDecode();
+    }
+
+    public void addRawValues (final LazyValues values) {
+        if (decoder == null) {
+            decoder = new ParallelDecoder(current.executeParams.decodeExecutor());
+        }
+        decoder.add(values);
+        drainDecoded(false);
+    }
+
+    // a failure here is handled like one in Connection.handleDataRow
+    private void drainDecoded (final boolean isEnd) {
+        if (decoder == null) {
+            return;
+        }
+        try {
+            Object[][] rows;
+            while ((rows = decoder.poll(isEnd)) != null) {
+                for (final Object[] values: rows) {
+                    setCurrentValues(values);
+                }
+            }
+        }
+        catch (Throwable e) {
+            decoder.clear();
+            final boolean isWrapped = e instanceof CompletionException && e.getCause() != null;
+            setException(isWrapped ? e.getCause() : e);
+        }
+    }
+
+    public Object[] getKeys () {
+        return current.keys;
+    }
+
+    public void setCurrentRow (final RowView row) {
+        final IRowReducer reducer = (IRowReducer) current.executeParams.reducer();
+        current.acc = reducer.appendRow(current.acc, row);
+    }
+
     private void addNode() {
-        current = new Node();
+        if (nextParams == null) {
+            current = new Node(executeParams);
+        }
+        else {
+            current = new Node(nextParams.hasNext() ? nextParams.next() : executeParams);
+        }
         nodes.add(current);
     }
 
@@ -195,7 +342,7 @@ public class Accum {
                 throw new PGError(exception, "Unhandled exception: %s", exception.getMessage());
             }
             else {
-                throw new PGError("ErrorResponse: %s", errorResponse.fields());
+                throw new PGErrorResponse(errorResponse);
             }
         }
     }
@@ -30,7 +30,9 @@ public record ConnConfig(
         IFn fnNotification,
         IFn fnProtocolVersion,
         IFn fnNotice,
-        SSLContext sslContext
+        SSLContext sslContext,
+        int statementCacheSize,
+        IQueryListener queryListener
 ) {
 
     public static Builder builder (final String user, final String database) {
@@ -63,6 +65,8 @@ public record ConnConfig(
         private IFn fnProtocolVersion = new core$println();
         private IFn fnNotice = new core$println();
         private SSLContext sslContext = null;
+        private int statementCacheSize = 0;
+        private IQueryListener queryListener = null;
 
         public Builder(final String user, final String database) {
             this.user = Objects.requireNonNull(user);
@@ -76,6 +80,16 @@ public record ConnConfig(
             return this;
         }
 
+        public Builder statementCacheSize(final int statementCacheSize) {
+            this.statementCacheSize = statementCacheSize;
+            return this;
+        }
+
+        public Builder queryListener(final IQueryListener queryListener) {
+            this.queryListener = Objects.requireNonNull(queryListener);
+            return this;
+        }
+
         public Builder protocolVersion(final int protocolVersion) {
             this.protocolVersion = protocolVersion;
             return this;
@@ -192,7 +206,9 @@ public record ConnConfig(
                     this.fnNotification,
                     this.fnProtocolVersion,
                     this.fnNotice,
-                    this.sslContext
+                    this.sslContext,
+                    this.statementCacheSize,
+                    this.queryListener
             );
         }
     }
@@ -4,8 +4,6 @@ import clojure.lang.Agent;
 import clojure.lang.IFn;
 import com.github.igrishaev.auth.MD5;
 import com.github.igrishaev.auth.ScramSha256;
-import com.github.igrishaev.codec.DecoderBin;
-import com.github.igrishaev.codec.DecoderTxt;
 import com.github.igrishaev.codec.EncoderBin;
 import com.github.igrishaev.codec.CodecParams;
 import com.github.igrishaev.codec.EncoderTxt;
@@ -14,6 +12,7 @@ import com.github.igrishaev.enums.*;
 import com.github.igrishaev.msg.*;
 import com.github.igrishaev.type.OIDHint;
 import com.github.igrishaev.util.BBTool;
+import com.github.igrishaev.util.CountingOutputStream;
 import com.github.igrishaev.util.IOTool;
 import com.github.igrishaev.util.SQL;
 
@@ -47,9 +46,22 @@ public class Connection implements Closeable {
     private Socket socket;
     private InputStream inStream;
     private OutputStream outStream;
+    private CountingOutputStream countingOutStream;
     private final Map<String, String> params;
     private final CodecParams codecParams;
+    private final StatementCache stmtCache;
     private boolean isSSL = false;
+    private boolean isPendingFlush = false;
+    private final byte[] header = new byte[5];
+    private byte[] body = new byte[Const.IN_BODY_BUF_SIZE];
+    private ByteBuffer bbBody = ByteBuffer.wrap(body);
+    private final DataRow dataRow = new DataRow();
+    private final RowView rowView;
+    private final Payload payload = new Payload(Const.OUT_PAYLOAD_SIZE);
+    private long bytesRead = 0;
+    private final IQueryListener queryListener;
+    private final QueryTrace queryTrace;
+    private boolean isTracing = false;
     private final static System.Logger.Level level = System.Logger.Level.INFO;
     private final System.Logger logger = System.getLogger(Connection.class.getCanonicalName());
 
@@ -70,9 +82,13 @@ public class Connection implements Closeable {
         this.config = config;
         this.params = new HashMap<>();
         this.codecParams = CodecParams.standard();
+        this.rowView = new RowView(codecParams);
         this.id = UUID.randomUUID();
         this.createdAt = System.currentTimeMillis();
         this.aInt = new AtomicInteger();
+        this.stmtCache = new StatementCache(config.statementCacheSize());
+        this.queryListener = config.queryListener();
+        this.queryTrace = queryListener == null ? null : new QueryTrace();
         connect();
         setSocketOptions();
         preSSLStage();
@@ -85,10 +101,16 @@ public class Connection implements Closeable {
         this(config, true);
     }
 
+    // the socket gets closed even if the connection is broken
     public void close () {
         if (!isClosed()) {
-            sendTerminate();
-            IOTool.close(socket);
+            try {
+                sendTerminate();
+                flush();
+            }
+            finally {
+                IOTool.close(socket);
+            }
         }
     }
 
@@ -122,10 +144,45 @@ public class Connection implements Closeable {
         return createdAt;
     }
 
+    @SuppressWarnings("unused")
+    public synchronized StatementCache.Stats getStatementCacheStats () {
+        return stmtCache.getStats();
+    }
+
     public synchronized Boolean isClosed () {
         return socket.isClosed();
     }
 
+    // An idle connection should have nothing to read. Bytes coming
+    // out of the blue are either a notification or a fatal error the
+    // server sent before hanging up.
+    @SuppressWarnings("unused")
+    public synchronized boolean hasPendingBytes () {
+        return IOTool.available(inStream) > 0;
+    }
+
+    // Sends an empty query and waits for the reply for at most timeout
+    // ms. A connection that fails to answer in time is closed because
+    // a late reply would leave the stream out of sync.
+    @SuppressWarnings("unused")
+    public synchronized boolean ping (final int timeout) {
+        if (isClosed()) {
+            return false;
+        }
+        try {
+            socket.setSoTimeout(timeout);
+            sendQuery("");
+            interact(Phase.QUERY, ExecuteParams.INSTANCE);
+            socket.setSoTimeout(config.SOTimeout());
+            return true;
+        }
+        catch (Throwable e) {
+            logger.log(level, "connection {0} failed to respond to a ping: {1}", id, e.getMessage());
+            IOTool.close(socket);
+            return false;
+        }
+    }
+
     @SuppressWarnings("unused")
     public synchronized TXStatus getTxStatus () {
         return txStatus;
@@ -148,6 +205,7 @@ public class Connection implements Closeable {
 
     private void setParam (final String param, final String value) {
         params.put(param, value);
+        rowView.resetSnapshot();
         switch (param) {
             case "client_encoding" ->
                     codecParams.clientCharset = Charset.forName(value);
@@ -197,6 +255,7 @@ public class Connection implements Closeable {
     }
 
     private boolean readSSLResponse () {
+        flush();
         final char c = (char) IOTool.read(inStream);
         return switch (c) {
             case 'N' -> false;
@@ -235,8 +294,11 @@ public class Connection implements Closeable {
                 config.inStreamBufSize()
         );
 
+        final CountingOutputStream sslCountingOutStream = new CountingOutputStream(
+                IOTool.getOutputStream(sslSocket)
+        );
         final OutputStream sslOutStream = new BufferedOutputStream(
-                IOTool.getOutputStream(sslSocket),
+                sslCountingOutStream,
                 config.outStreamBufSize()
         );
 
@@ -247,6 +309,7 @@ public class Connection implements Closeable {
         socket = sslSocket;
         inStream = sslInStream;
         outStream = sslOutStream;
+        countingOutStream = sslCountingOutStream;
         isSSL = true;
     }
 
@@ -283,39 +346,103 @@ public class Connection implements Closeable {
                 IOTool.getInputStream(socket),
                 config.inStreamBufSize()
         );
+        countingOutStream = new CountingOutputStream(
+                IOTool.getOutputStream(socket)
+        );
         outStream = new BufferedOutputStream(
-                IOTool.getOutputStream(socket),
+                countingOutStream,
                 config.outStreamBufSize()
         );
     }
 
+    @SuppressWarnings("unused")
+    public synchronized long getWriteCount () {
+        return countingOutStream.getWriteCount();
+    }
+
+    @SuppressWarnings("unused")
+    public synchronized long getBytesWritten () {
+        return countingOutStream.getByteCount();
+    }
+
+    @SuppressWarnings("unused")
+    public synchronized long getBytesRead () {
+        return bytesRead;
+    }
+
+    // a nested call, e.g. prepare within execute, is a part of the outer trace
+    private boolean startTrace (final Phase phase, final String sql) {
+        if (queryListener == null || isTracing) {
+            return false;
+        }
+        queryTrace.start(phase, sql, bytesRead, countingOutStream.getByteCount());
+        queryListener.onStart(queryTrace);
+        isTracing = true;
+        return true;
+    }
+
+    private void failTrace (final boolean isTraced, final Throwable e) {
+        if (isTraced) {
+            queryTrace.error = e;
+        }
+    }
+
+    private void endTrace (final boolean isTraced) {
+        if (isTraced) {
+            isTracing = false;
+            queryTrace.end(bytesRead, countingOutStream.getByteCount());
+            queryListener.onEnd(queryTrace);
+        }
+    }
+
     private void sendBytes (final byte[] buf) {
         if (isDebug) {
             logger.log(level," <- {0}", Arrays.toString(buf));
         }
         IOTool.write(outStream, buf);
-        IOTool.flush(outStream);
+        isPendingFlush = true;
     }
 
     private void sendBytes (final byte[] buf, final int offset, final int len) {
         IOTool.write(outStream, buf, offset, len);
-        IOTool.flush(outStream);
+        isPendingFlush = true;
     }
 
+    // Nothing is flushed here: messages pile up in the buffered stream
+    // and go out at once when the client starts waiting for the server.
     private void sendMessage (final IMessage msg) {
         if (isDebug) {
             logger.log(level, " <- {0}", msg);
         }
-        final ByteBuffer buf = msg.encode(codecParams.clientCharset);
+        payload.clear();
+        msg.encode(payload, codecParams.clientCharset);
         try {
-            outStream.write(buf.array());
-            outStream.flush();
+            outStream.write(payload.array(), 0, payload.size());
+            isPendingFlush = true;
         }
         catch (IOException e) {
             throw new PGError(e, "could not write bb to the out stream");
         }
     }
 
+    private void sendFrame (final IFrame msg) {
+        if (isDebug) {
+            logger.log(level, " <- {0}", msg);
+        }
+        msg.write(outStream);
+        isPendingFlush = true;
+    }
+
+    private void flush () {
+        if (isPendingFlush) {
+            IOTool.flush(outStream);
+            isPendingFlush = false;
+            if (isTracing) {
+                queryTrace.onSent();
+            }
+        }
+    }
+
     private String generateStatement () {
         return String.format("s%d", nextInt());
     }
@@ -340,7 +467,7 @@ public class Connection implements Closeable {
     }
 
     private void sendCopyDone () {
-        sendMessage(CopyDone.INSTANCE);
+        sendFrame(CopyDone.INSTANCE);
     }
 
     private void sendCopyFail (final String errorMessage) {
@@ -356,15 +483,15 @@ public class Connection implements Closeable {
     }
 
     private void sendSync () {
-        sendMessage(Sync.INSTANCE);
+        sendFrame(Sync.INSTANCE);
     }
 
     private void sendFlush () {
-        sendMessage(Flush.INSTANCE);
+        sendFrame(Flush.INSTANCE);
     }
 
     private void sendTerminate () {
-        sendMessage(Terminate.INSTANCE);
+        sendFrame(Terminate.INSTANCE);
     }
 
     @SuppressWarnings("unused")
@@ -372,13 +499,27 @@ public class Connection implements Closeable {
         sendMessage(new SSLRequest(Const.SSL_CODE));
     }
 
-    private Object readMessage (final boolean skipMode) {
+    // reads the tag and the length; the body is read by readMessage
+    private char readHeader () {
+        flush();
+        IOTool.readNBytes(inStream, header, 0, 5);
+        final char tag = (char) header[0];
+        bytesRead += 1 + (((header[1] & 0xFF) << 24)
+                | ((header[2] & 0xFF) << 16)
+                | ((header[3] & 0xFF) << 8)
+                | (header[4] & 0xFF));
+        if (isTracing) {
+            queryTrace.onMessage(tag);
+        }
+        return tag;
+    }
 
-        final byte[] bufHeader = IOTool.readNBytes(inStream, 5);
-        final ByteBuffer bbHeader = ByteBuffer.wrap(bufHeader);
+    private Object readMessage (final char tag, final boolean skipMode) {
 
-        final char tag = (char) bbHeader.get();
-        final int bodySize = bbHeader.getInt() - 4;
+        final int bodySize = (((header[1] & 0xFF) << 24)
+                | ((header[2] & 0xFF) << 16)
+                | ((header[3] & 0xFF) << 8)
+                | (header[4] & 0xFF)) - 4;
 
         if (skipMode) {
             if (tag == 'D' || tag == 'd') {
@@ -387,8 +528,7 @@ public class Connection implements Closeable {
             }
         }
 
-        byte[] bufBody = IOTool.readNBytes(inStream, bodySize);
-        ByteBuffer bbBody = ByteBuffer.wrap(bufBody);
+        final ByteBuffer bbBody = readBody(bodySize);
 
         return switch (tag) {
             case 'R' -> AuthenticationResponse.fromByteBuffer(bbBody).parseResponse(bbBody, codecParams.serverCharset);
@@ -396,7 +536,7 @@ public class Connection implements Closeable {
             case 'Z' -> ReadyForQuery.fromByteBuffer(bbBody);
             case 'C' -> CommandComplete.fromByteBuffer(bbBody, codecParams.serverCharset);
             case 'T' -> RowDescription.fromByteBuffer(bbBody, codecParams.serverCharset);
-            case 'D' -> DataRow.fromByteBuffer(bbBody);
+            case 'D' -> dataRow.read(bbBody);
             case 'E' -> ErrorResponse.fromByteBuffer(bbBody, codecParams.serverCharset);
             case 'K' -> BackendKeyData.fromByteBuffer(bbBody);
             case '1' -> ParseComplete.INSTANCE;
@@ -418,6 +558,23 @@ public class Connection implements Closeable {
 
     }
 
+    // Messages are parsed right out of the shared buffer; nothing may keep
+    // a reference to it after the message has been handled.
+    private ByteBuffer readBody (final int bodySize) {
+        if (bodySize > body.length) {
+            body = new byte[Math.max(bodySize, body.length * 2)];
+            bbBody = ByteBuffer.wrap(body);
+        }
+        else if (body.length > Const.IN_BODY_BUF_MAX_SIZE && bodySize <= Const.IN_BODY_BUF_SIZE) {
+            body = new byte[Const.IN_BODY_BUF_SIZE];
+            bbBody = ByteBuffer.wrap(body);
+        }
+        IOTool.readNBytes(inStream, body, 0, bodySize);
+        bbBody.clear();
+        bbBody.limit(bodySize);
+        return bbBody;
+    }
+
     private void sendDescribeStatement (final String statement) {
         final Describe msg = new Describe(SourceType.STATEMENT, statement);
         sendMessage(msg);
@@ -438,13 +595,21 @@ public class Connection implements Closeable {
     }
 
     public synchronized Object query(final String sql, final ExecuteParams executeParams) {
-        sendQuery(sql);
-        return interact(Phase.QUERY, executeParams).getResult();
+        final boolean isTraced = startTrace(Phase.QUERY, sql);
+        try {
+            sendQuery(sql);
+            return interact(Phase.QUERY, executeParams).getResult();
+        }
+        catch (Throwable e) {
+            failTrace(isTraced, e);
+            throw e;
+        }
+        finally {
+            endTrace(isTraced);
+        }
     }
 
-    public synchronized PreparedStatement prepare (final String sql, final ExecuteParams executeParams) {
-        final String statement = generateStatement();
-
+    private static OID[] guessOIDs (final ExecuteParams executeParams) {
         final List<OID> OIDsProvided = executeParams.OIDs();
         final int OIDsProvidedCount = OIDsProvided.size();
 
@@ -462,23 +627,44 @@ public class Connection implements Closeable {
                 OIDs[i] = OIDHint.guessOID(param);
             }
         }
+        return OIDs;
+    }
 
+    public synchronized PreparedStatement prepare (final String sql, final ExecuteParams executeParams) {
+        final String statement = generateStatement();
+        final OID[] OIDs = guessOIDs(executeParams);
         final Parse parse = new Parse(statement, sql, OIDs);
+        sendEvictedCloses();
         sendMessage(parse);
         sendDescribeStatement(statement);
         sendSync();
-        sendFlush();
         final Accum acc = interact(Phase.PREPARE);
         final ParameterDescription paramDesc = acc.getParameterDescription();
         return new PreparedStatement(parse, paramDesc);
     }
 
-    private void sendBind (final String portal,
-                           final PreparedStatement stmt,
-                           final ExecuteParams executeParams
+    private Format getParamsFormat (final ExecuteParams executeParams) {
+        return (executeParams.binaryEncode() || config.binaryEncode()) ? Format.BIN : Format.TXT;
+    }
+
+    private Format getColumnFormat (final ExecuteParams executeParams) {
+        return (executeParams.binaryDecode() || config.binaryDecode()) ? Format.BIN : Format.TXT;
+    }
+
+    private Bind encodeBind (final String portal,
+                             final String statement,
+                             final OID[] OIDs,
+                             final ExecuteParams executeParams
+    ) {
+        return encodeBind(portal, statement, OIDs, executeParams.params(), executeParams);
+    }
+
+    private Bind encodeBind (final String portal,
+                             final String statement,
+                             final OID[] OIDs,
+                             final List<Object> params,
+                             final ExecuteParams executeParams
     ) {
-        final List<Object> params = executeParams.params();
-        final OID[] OIDs = stmt.parameterDescription().OIDs();
         final int size = params.size();
 
         if (size != OIDs.length) {
@@ -488,11 +674,10 @@ public class Connection implements Closeable {
             );
         }
 
-        final Format paramsFormat = (executeParams.binaryEncode() || config.binaryEncode()) ? Format.BIN : Format.TXT;
-        final Format columnFormat = (executeParams.binaryDecode() || config.binaryDecode()) ? Format.BIN : Format.TXT;
+        final Format paramsFormat = getParamsFormat(executeParams);
+        final Format columnFormat = getColumnFormat(executeParams);
 
         final byte[][] bytes = new byte[size][];
-        String statement = stmt.parse().statement();
         int i = -1;
         for (final Object param: params) {
             i++;
@@ -514,7 +699,7 @@ public class Connection implements Closeable {
                     throw new PGError("unknown format: %s", paramsFormat);
             }
         }
-        final Bind msg = new Bind(
+        return new Bind(
                 portal,
                 statement,
                 bytes,
@@ -522,6 +707,18 @@ public class Connection implements Closeable {
                 paramsFormat,
                 columnFormat
         );
+    }
+
+    private void sendBind (final String portal,
+                           final PreparedStatement stmt,
+                           final ExecuteParams executeParams
+    ) {
+        final Bind msg = encodeBind(
+                portal,
+                stmt.parse().statement(),
+                stmt.parameterDescription().OIDs(),
+                executeParams
+        );
         sendMessage(msg);
     }
 
@@ -529,14 +726,24 @@ public class Connection implements Closeable {
             final PreparedStatement stmt,
             final ExecuteParams executeParams
     ) {
-        final String portal = generatePortal();
-        sendBind(portal, stmt, executeParams);
-        sendDescribePortal(portal);
-        sendExecute(portal, executeParams.rowCount());
-        sendClosePortal(portal);
-        sendSync();
-        sendFlush();
-        return interact(Phase.EXECUTE, executeParams).getResult();
+        final boolean isTraced = startTrace(Phase.EXECUTE, stmt.parse().query());
+        try {
+            final String portal = generatePortal();
+            sendEvictedCloses();
+            sendBind(portal, stmt, executeParams);
+            sendDescribePortal(portal);
+            sendExecute(portal, executeParams.rowCount());
+            sendClosePortal(portal);
+            sendSync();
+            return interact(Phase.EXECUTE, executeParams).getResult();
+        }
+        catch (Throwable e) {
+            failTrace(isTraced, e);
+            throw e;
+        }
+        finally {
+            endTrace(isTraced);
+        }
     }
 
     public synchronized Object execute (final String sql) {
@@ -548,12 +755,415 @@ public class Connection implements Closeable {
     }
 
     public synchronized Object execute (final String sql, final ExecuteParams executeParams) {
+        final boolean isTraced = startTrace(Phase.EXECUTE, sql);
+        try {
+            return executeUntraced(sql, executeParams);
+        }
+        catch (Throwable e) {
+            failTrace(isTraced, e);
+            throw e;
+        }
+        finally {
+            endTrace(isTraced);
+        }
+    }
+
+    private Object executeUntraced (final String sql, final ExecuteParams executeParams) {
+        final OID[] OIDs = guessOIDs(executeParams);
+        if (stmtCache.isEnabled()) {
+            return executeCached(sql, OIDs, executeParams);
+        }
+        if (isOneShotPossible(OIDs, executeParams)) {
+            return executeOneShot(sql, OIDs, executeParams);
+        }
         final PreparedStatement stmt = prepare(sql, executeParams);
         final Object res = executeStatement(stmt, executeParams);
         closeStatement(stmt);
         return res;
     }
 
+    // binary-encoding a value of unknown type requires a ParameterDescription
+    private boolean isOneShotPossible (final OID[] OIDs, final ExecuteParams executeParams) {
+        if (getParamsFormat(executeParams) == Format.TXT) {
+            return true;
+        }
+        final List<Object> params = executeParams.params();
+        for (int i = 0; i < OIDs.length; i++) {
+            if (OIDs[i] == OID.DEFAULT && params.get(i) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // a single round trip; Bind is encoded before anything gets sent
+    private Object executeOneShot (final String sql,
+                                   final OID[] OIDs,
+                                   final ExecuteParams executeParams
+    ) {
+        final Bind bind = encodeBind("", "", OIDs, executeParams);
+        sendEvictedCloses();
+        sendMessage(new Parse("", sql, OIDs));
+        sendMessage(bind);
+        sendDescribePortal("");
+        sendExecute("", executeParams.rowCount());
+        sendClosePortal("");
+        sendCloseStatement("");
+        sendSync();
+        return interact(Phase.EXECUTE, executeParams).getResult();
+    }
+
+    // a statement might go stale, e.g. after DEALLOCATE ALL or a schema
+    // change, and then it gets re-prepared next time; other errors like
+    // constraint violations keep it in the cache
+    private Object executeCached (final String sql,
+                                  final OID[] OIDs,
+                                  final ExecuteParams executeParams
+    ) {
+        final StatementCache.Key key = StatementCache.Key.of(sql, OIDs);
+        PreparedStatement stmt = stmtCache.get(key);
+        if (stmt == null) {
+            stmt = prepare(sql, executeParams);
+            stmtCache.put(key, stmt);
+        }
+        try {
+            return executeStatement(stmt, executeParams);
+        }
+        catch (PGErrorResponse e) {
+            if (isStaleStatement(e.getCode())) {
+                stmtCache.invalidate(key);
+            }
+            throw e;
+        }
+    }
+
+    // 26000: invalid SQL statement name,
+    // 0A000: cached plan must not change result type
+    private static boolean isStaleStatement (final String code) {
+        return "26000".equals(code) || "0A000".equals(code);
+    }
+
+    // evicted statements get closed along with the next request
+    private void sendEvictedCloses () {
+        if (stmtCache.hasEvicted()) {
+            for (final PreparedStatement stmt: stmtCache.pollEvicted()) {
+                sendCloseStatement(stmt.parse().statement());
+            }
+        }
+    }
+
+    // Bind and Execute for every row, one Sync at the end. The rows are
+    // sent in chunks, each followed by Flush and read right away so
+    // neither side gets stuck on a full socket buffer.
+    public synchronized List<Object> executeBatch (final PreparedStatement stmt,
+                                                   final List<List<Object>> rows,
+                                                   final ExecuteParams executeParams
+    ) {
+        final boolean isTraced = startTrace(Phase.BATCH, stmt.parse().query());
+        try {
+            return executeBatchUntraced(stmt, rows, executeParams);
+        }
+        catch (Throwable e) {
+            failTrace(isTraced, e);
+            throw e;
+        }
+        finally {
+            endTrace(isTraced);
+        }
+    }
+
+    private List<Object> executeBatchUntraced (final PreparedStatement stmt,
+                                               final List<List<Object>> rows,
+                                               final ExecuteParams executeParams
+    ) {
+        // a suspended portal reports no row count, so the counts
+        // would not line up with the rows
+        if (executeParams.rowCount() > 0) {
+            throw new PGError("a batch cannot limit the row count: %s", executeParams.rowCount());
+        }
+        final int size = rows.size();
+        if (size == 0) {
+            return new ArrayList<>(0);
+        }
+
+        final String statement = stmt.parse().statement();
+        final OID[] OIDs = stmt.parameterDescription().OIDs();
+        final Bind[] binds = new Bind[size];
+        int i = 0;
+        for (final List<Object> row: rows) {
+            binds[i++] = encodeBind("", statement, OIDs, row, executeParams);
+        }
+
+        final Accum acc = new Accum(Phase.BATCH, executeParams);
+        final Execute execute = new Execute("", executeParams.rowCount());
+        final int chunkSize = Const.EXE_BATCH_CHUNK_SIZE;
+
+        sendEvictedCloses();
+        for (i = 0; i < size; i++) {
+            sendMessage(binds[i]);
+            sendMessage(execute);
+            if ((i + 1) % chunkSize == 0 && i + 1 < size) {
+                sendFlush();
+                readBatchChunk(acc, i + 1);
+                if (acc.hasErrorResponse()) {
+                    break;
+                }
+            }
+        }
+        sendSync();
+        interact(acc);
+        return acc.getRowCounts();
+    }
+
+    private void readBatchChunk (final Accum acc, final int count) {
+        while (acc.getCompleteCount() < count && !acc.hasErrorResponse()) {
+            final char tag = readHeader();
+            final Object msg = readMessage(tag, acc.isSkipMode());
+            if (isDebug) {
+                logger.log(level, " -> {0}", msg);
+            }
+            handleMessage(tag, msg, acc);
+        }
+    }
+
+    // row count from the params is the fetch size
+    @SuppressWarnings("unused")
+    public synchronized Cursor cursor (final String sql, final ExecuteParams executeParams) {
+        checkTransaction("cursor");
+        final PreparedStatement stmt = prepare(sql, executeParams);
+        try {
+            return cursor(stmt, executeParams, true);
+        }
+        catch (PGError e) {
+            closeStatement(stmt);
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public synchronized Cursor cursor (final PreparedStatement stmt, final ExecuteParams executeParams) {
+        checkTransaction("cursor");
+        return cursor(stmt, executeParams, false);
+    }
+
+    private Cursor cursor (final PreparedStatement stmt,
+                           final ExecuteParams executeParams,
+                           final boolean ownsStatement
+    ) {
+        final String portal = generatePortal();
+        final Bind bind = encodeBind(
+                portal,
+                stmt.parse().statement(),
+                stmt.parameterDescription().OIDs(),
+                executeParams
+        );
+        final long rowCount = executeParams.rowCount();
+        final long fetchSize = rowCount > 0 ? rowCount : Const.CURSOR_FETCH_SIZE;
+        return new Cursor(this, portal, bind, stmt, ownsStatement, executeParams, fetchSize);
+    }
+
+    private void checkTransaction (final String what) {
+        if (txStatus != TXStatus.TRANSACTION) {
+            throw new PGError("A %s requires a transaction, the status is %s", what, txStatus);
+        }
+    }
+
+    // The first fetch binds and describes the portal; the next ones only
+    // execute it so the row description is passed in from the first one.
+    synchronized Accum fetchPortal (final String portal,
+                                    final Bind bind,
+                                    final RowDescription rowDescription,
+                                    final ExecuteParams executeParams,
+                                    final long fetchSize
+    ) {
+        sendEvictedCloses();
+        if (bind != null) {
+            sendMessage(bind);
+            sendDescribePortal(portal);
+        }
+        sendExecute(portal, fetchSize);
+        sendSync();
+        final Accum acc = new Accum(Phase.EXECUTE, executeParams);
+        if (rowDescription != null) {
+            acc.handleRowDescription(rowDescription);
+        }
+        return interact(acc);
+    }
+
+    synchronized void closePortal (final String portal, final PreparedStatement stmt) {
+        sendClosePortal(portal);
+        if (stmt != null) {
+            sendCloseStatement(stmt.parse().statement());
+        }
+        sendSync();
+        interact(Phase.CLOSE);
+    }
+
+    @SuppressWarnings("unused")
+    public Pipeline pipeline () {
+        return new Pipeline(this, PipelineMode.SYNC_EACH);
+    }
+
+    @SuppressWarnings("unused")
+    public Pipeline pipeline (final PipelineMode mode) {
+        return new Pipeline(this, mode);
+    }
+
+    // the messages of each step, without Sync
+    private List<List<IMessage>> pipelineMessages (final Pipeline pipeline,
+                                                   final List<PreparedStatement> tempStatements
+    ) {
+        final List<List<IMessage>> stepMessages = new ArrayList<>(pipeline.size());
+        for (final Pipeline.Step step: pipeline.getSteps()) {
+            final ExecuteParams executeParams = step.executeParams();
+            final List<IMessage> messages = new ArrayList<>(5);
+            if (step.statement() == null) {
+                final OID[] OIDs = guessOIDs(executeParams);
+                if (isOneShotPossible(OIDs, executeParams)) {
+                    final Bind bind = encodeBind("", "", OIDs, executeParams);
+                    messages.add(new Parse("", step.sql(), OIDs));
+                    messages.add(bind);
+                }
+                else {
+                    final PreparedStatement stmt = prepare(step.sql(), executeParams);
+                    tempStatements.add(stmt);
+                    messages.add(encodeBind(
+                            "",
+                            stmt.parse().statement(),
+                            stmt.parameterDescription().OIDs(),
+                            executeParams
+                    ));
+                }
+            }
+            else {
+                final PreparedStatement stmt = step.statement();
+                messages.add(encodeBind(
+                        "",
+                        stmt.parse().statement(),
+                        stmt.parameterDescription().OIDs(),
+                        executeParams
+                ));
+            }
+            messages.add(new Describe(SourceType.PORTAL, ""));
+            messages.add(new Execute("", executeParams.rowCount()));
+            messages.add(new Close(SourceType.PORTAL, ""));
+            stepMessages.add(messages);
+        }
+        return stepMessages;
+    }
+
+    // The steps are sent in chunks and the results of each chunk are
+    // read before the next one goes, so the server never gets stuck
+    // writing results while the client is still writing steps.
+    public synchronized List<Object> runPipeline (final Pipeline pipeline) {
+        final List<Pipeline.Step> steps = pipeline.getSteps();
+        if (steps.isEmpty()) {
+            return new ArrayList<>(0);
+        }
+        final List<PreparedStatement> tempStatements = new ArrayList<>();
+        final List<Object> results;
+        try {
+            final List<List<IMessage>> stepMessages = pipelineMessages(pipeline, tempStatements);
+            sendEvictedCloses();
+            if (pipeline.getMode() == PipelineMode.SYNC_ONCE) {
+                results = runPipelineSyncOnce(steps, stepMessages);
+            }
+            else {
+                results = runPipelineSyncEach(steps, stepMessages);
+            }
+        }
+        catch (Throwable e) {
+            // the connection might be dead, e.g. after an IO error:
+            // don't let the cleanup hide the cause
+            try {
+                closeTempStatements(tempStatements);
+            }
+            catch (Throwable cleanupError) {
+                e.addSuppressed(cleanupError);
+            }
+            throw e;
+        }
+        closeTempStatements(tempStatements);
+        return results;
+    }
+
+    // after the pipeline's own Sync, so that an error
+    // doesn't make the server skip the Close messages
+    private void closeTempStatements (final List<PreparedStatement> tempStatements) {
+        if (tempStatements.isEmpty() || isClosed()) {
+            return;
+        }
+        for (final PreparedStatement stmt: tempStatements) {
+            sendCloseStatement(stmt.parse().statement());
+        }
+        sendSync();
+        interact(Phase.CLOSE);
+    }
+
+    private void sendMessages (final List<IMessage> messages) {
+        for (final IMessage msg: messages) {
+            sendMessage(msg);
+        }
+    }
+
+    private List<Object> runPipelineSyncOnce (final List<Pipeline.Step> steps,
+                                              final List<List<IMessage>> stepMessages
+    ) {
+        final int size = steps.size();
+        final List<ExecuteParams> paramsList = new ArrayList<>(size);
+        for (final Pipeline.Step step: steps) {
+            paramsList.add(step.executeParams());
+        }
+        final Accum acc = new Accum(Phase.EXECUTE, paramsList);
+        final int chunkSize = Const.PIPELINE_CHUNK_SIZE;
+        for (int i = 0; i < size; i++) {
+            sendMessages(stepMessages.get(i));
+            if ((i + 1) % chunkSize == 0 && i + 1 < size) {
+                sendFlush();
+                readBatchChunk(acc, i + 1);
+                if (acc.hasErrorResponse()) {
+                    break;
+                }
+            }
+        }
+        sendSync();
+        return interact(acc).getResults();
+    }
+
+    private List<Object> runPipelineSyncEach (final List<Pipeline.Step> steps,
+                                              final List<List<IMessage>> stepMessages
+    ) {
+        final int size = steps.size();
+        final int chunkSize = Const.PIPELINE_CHUNK_SIZE;
+        final List<Object> results = new ArrayList<>(size);
+        PGError error = null;
+        int errorIndex = -1;
+        int readCount = 0;
+        for (int i = 0; i < size; i++) {
+            sendMessages(stepMessages.get(i));
+            sendSync();
+            if ((i + 1) % chunkSize != 0 && i + 1 < size) {
+                continue;
+            }
+            for (; readCount <= i; readCount++) {
+                try {
+                    results.add(interact(Phase.EXECUTE, steps.get(readCount).executeParams()).getResult());
+                }
+                catch (PGError e) {
+                    results.add(null);
+                    if (error == null) {
+                        error = e;
+                        errorIndex = readCount;
+                    }
+                }
+            }
+        }
+        if (error != null) {
+            throw new PGError(error, "Pipeline step %s failed: %s", errorIndex, error.getMessage());
+        }
+        return results;
+    }
+
     private void sendCloseStatement (final String statement) {
         final Close msg = new Close(SourceType.STATEMENT, statement);
         sendMessage(msg);
@@ -571,19 +1181,23 @@ public class Connection implements Closeable {
     public synchronized void closeStatement (final String statement) {
         sendCloseStatement(statement);
         sendSync();
-        sendFlush();
         interact(Phase.CLOSE);
     }
 
     private Accum interact(final Phase phase, final ExecuteParams executeParams) {
-        final Accum acc = new Accum(phase, executeParams);
+        return interact(new Accum(phase, executeParams));
+    }
+
+    private Accum interact(final Accum acc) {
+        final Phase phase = acc.phase;
         while (true) {
-            final Object msg = readMessage(acc.hasException());
+            final char tag = readHeader();
+            final Object msg = readMessage(tag, acc.isSkipMode());
             if (isDebug) {
                 logger.log(level, " -> {0}", msg);
             }
-            handleMessage(msg, acc);
-            if (isEnough(msg, phase)) {
+            handleMessage(tag, msg, acc);
+            if (isEnough(tag, phase)) {
                 break;
             }
         }
@@ -595,81 +1209,56 @@ public class Connection implements Closeable {
         return interact(phase, ExecuteParams.INSTANCE);
     }
 
-    private void handleMessage(final Object msg, final Accum acc) {
-        switch (msg.getClass().getSimpleName()) {
-            case
-                    "NotificationResponse" ->
-                    handleNotificationResponse((NotificationResponse)msg);
-            case
-                    "NoData",
-                    "EmptyQueryResponse",
-                    "CloseComplete",
-                    "BindComplete",
-                    "AuthenticationOk",
-                    "CopyDone",
-                    "SkippedMessage"-> {}
-            case
-                    "AuthenticationCleartextPassword" ->
-                    handleAuthenticationCleartextPassword();
-            case
-                    "AuthenticationSASL" ->
-                    handleAuthenticationSASL((AuthenticationSASL)msg, acc);
-            case
-                    "AuthenticationSASLContinue" ->
-                    handleAuthenticationSASLContinue((AuthenticationSASLContinue)msg, acc);
-            case
-                    "AuthenticationSASLFinal" ->
-                    handleAuthenticationSASLFinal((AuthenticationSASLFinal)msg, acc);
-            case
-                    "NoticeResponse" ->
-                    handleNoticeResponse((NoticeResponse)msg);
-            case
-                    "ParameterStatus" ->
-                    handleParameterStatus((ParameterStatus)msg);
-            case
-                    "RowDescription" ->
-                    handleRowDescription((RowDescription)msg, acc);
-            case
-                    "DataRow" ->
-                    handleDataRow((DataRow)msg, acc);
-            case
-                    "ReadyForQuery" ->
-                    handleReadyForQuery((ReadyForQuery)msg);
-            case
-                    "PortalSuspended" ->
-                    handlePortalSuspended((PortalSuspended)msg, acc);
-            case
-                    "AuthenticationMD5Password" ->
-                    handleAuthenticationMD5Password((AuthenticationMD5Password)msg);
-            case
-                    "NegotiateProtocolVersion" ->
-                    handleNegotiateProtocolVersion((NegotiateProtocolVersion)msg);
-            case
-                    "CommandComplete" ->
-                    handleCommandComplete((CommandComplete)msg, acc);
-            case
-                    "ErrorResponse" ->
-                    handleErrorResponse((ErrorResponse)msg, acc);
-            case
-                    "BackendKeyData" ->
-                    handleBackendKeyData((BackendKeyData)msg);
-            case
-                    "ParameterDescription" ->
-                    handleParameterDescription((ParameterDescription)msg, acc);
-            case
-                    "ParseComplete" ->
-                    handleParseComplete((ParseComplete)msg, acc);
-            case
-                    "CopyOutResponse" ->
-                    handleCopyOutResponse((CopyOutResponse)msg, acc);
-            case
-                    "CopyData" ->
-                    handleCopyData((CopyData)msg, acc);
-            case
-                    "CopyInResponse" ->
-                    handleCopyInResponse(acc);
-            default ->
-                    throw new PGError("Cannot handle this message: %s", msg);
+    // the tag is the message type byte, so the switch compiles into a table
+    private void handleMessage(final char tag, final Object msg, final Accum acc) {
+        if (msg == SkippedMessage.INSTANCE) {
+            return;
+        }
+        switch (tag) {
+            case 'D' -> handleDataRow((DataRow)msg, acc);
+            case 'C' -> handleCommandComplete((CommandComplete)msg, acc);
+            case 'T' -> handleRowDescription((RowDescription)msg, acc);
+            case 'Z' -> handleReadyForQuery((ReadyForQuery)msg);
+            case 'E' -> handleErrorResponse((ErrorResponse)msg, acc);
+            case 'I' -> handleEmptyQueryResponse(acc);
+            case 's' -> handlePortalSuspended((PortalSuspended)msg, acc);
+            case 't' -> handleParameterDescription((ParameterDescription)msg, acc);
+            case '1' -> handleParseComplete((ParseComplete)msg, acc);
+            case '2', '3', 'n', 'c' -> {}
+            case 'A' -> handleNotificationResponse((NotificationResponse)msg);
+            case 'N' -> handleNoticeResponse((NoticeResponse)msg);
+            case 'S' -> handleParameterStatus((ParameterStatus)msg);
+            case 'K' -> handleBackendKeyData((BackendKeyData)msg);
+            case 'v' -> handleNegotiateProtocolVersion((NegotiateProtocolVersion)msg);
+            case 'H' -> handleCopyOutResponse((CopyOutResponse)msg, acc);
+            case 'd' -> handleCopyData((CopyData)msg, acc);
+            case 'G' -> handleCopyInResponse(acc);
+            case 'R' -> handleAuthentication(msg, acc);
+            default -> throw new PGError("Cannot handle this message: %s", msg);
+        }
+    }
+
+    private void handleAuthentication(final Object msg, final Accum acc) {
+        if (msg instanceof AuthenticationOk) {
+            return;
+        }
+        if (msg instanceof AuthenticationCleartextPassword) {
+            handleAuthenticationCleartextPassword();
+        }
+        else if (msg instanceof AuthenticationSASL) {
+            handleAuthenticationSASL((AuthenticationSASL)msg, acc);
+        }
+        else if (msg instanceof AuthenticationSASLContinue) {
+            handleAuthenticationSASLContinue((AuthenticationSASLContinue)msg, acc);
+        }
+        else if (msg instanceof AuthenticationSASLFinal) {
+            handleAuthenticationSASLFinal((AuthenticationSASLFinal)msg, acc);
+        }
+        else if (msg instanceof AuthenticationMD5Password) {
+            handleAuthenticationMD5Password((AuthenticationMD5Password)msg);
+        }
+        else {
+            throw new PGError("Cannot handle this message: %s", msg);
         }
     }
 
@@ -836,6 +1425,10 @@ public class Connection implements Closeable {
         }
     }
 
+    private static void handleEmptyQueryResponse(final Accum acc) {
+        acc.handleEmptyQueryResponse();
+    }
+
     private void handlePortalSuspended(final PortalSuspended msg, final Accum acc) {
         acc.handlePortalSuspended(msg);
     }
@@ -881,14 +1474,24 @@ public class Connection implements Closeable {
 
     private void handleCopyDataUnsafe(final CopyData msg, final Accum acc) throws IOException {
         final OutputStream outputStream = acc.executeParams.outputStream();
-        final byte[] bytes = msg.buf().array();
-        outputStream.write(bytes);
+        final ByteBuffer buf = msg.buf();
+        outputStream.write(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
     }
 
     public synchronized Object copy (final String sql, final ExecuteParams executeParams) {
-        sendQuery(sql);
-        final Accum acc = interact(Phase.COPY, executeParams);
-        return acc.getResult();
+        final boolean isTraced = startTrace(Phase.COPY, sql);
+        try {
+            sendQuery(sql);
+            final Accum acc = interact(Phase.COPY, executeParams);
+            return acc.getResult();
+        }
+        catch (Throwable e) {
+            failTrace(isTraced, e);
+            throw e;
+        }
+        finally {
+            endTrace(isTraced);
+        }
     }
 
     private static List<Object> mapToRow(final Map<?,?> map, final List<Object> keys) {
@@ -920,36 +1523,39 @@ public class Connection implements Closeable {
     }
 
     private void handleDataRowUnsafe(final DataRow msg, final Accum acc) {
-        final short size = msg.valueCount();
         final RowDescription.Column[] cols = acc.getRowDescription().columns();
-        final ByteBuffer[] bufs = msg.values();
+        rowView.reset(msg, cols, acc.getKeys());
+        if (acc.isRowReducer()) {
+            acc.setCurrentRow(rowView);
+            return;
+        }
+        if (acc.isLazy()) {
+            acc.setCurrentLazyValues(rowView.toLazyValues());
+            return;
+        }
+        if (acc.isParallelDecode()) {
+            acc.addRawValues(rowView.toLazyValues());
+            return;
+        }
+        final short size = msg.valueCount();
         final Object[] values = new Object[size];
         for (short i = 0; i < size; i++) {
-            final ByteBuffer buf = bufs[i];
-            if (buf == null) {
-                values[i] = null;
-                continue;
-            }
-            final RowDescription.Column col = cols[i];
-            final Object value = switch (col.format()) {
-                case TXT -> {
-                    final String string = BBTool.getString(buf, codecParams.serverCharset);
-                    yield DecoderTxt.decode(string, col.typeOid());
-                }
-                case BIN -> DecoderBin.decode(buf, col.typeOid(), codecParams);
-            };
-            values[i] = value;
+            values[i] = rowView.getObject(i);
         }
         acc.setCurrentValues(values);
     }
 
     private void handleDataRow(final DataRow msg, final Accum acc) {
+        final long started = isTracing ? System.nanoTime() : 0;
         try {
             handleDataRowUnsafe(msg, acc);
         }
         catch (Throwable e) {
             acc.setException(e);
         }
+        if (isTracing) {
+            queryTrace.decodeNanos += System.nanoTime() - started;
+        }
     }
 
     private void handleReadyForQuery(final ReadyForQuery msg) {
@@ -969,10 +1575,10 @@ public class Connection implements Closeable {
         secretKey = msg.secretKey();
     }
 
-    private static Boolean isEnough (final Object msg, final Phase phase) {
-        return switch (msg.getClass().getSimpleName()) {
-            case "ReadyForQuery" -> true;
-            case "ErrorResponse" -> phase == Phase.AUTH;
+    private static boolean isEnough (final char tag, final Phase phase) {
+        return switch (tag) {
+            case 'Z' -> true;
+            case 'E' -> phase == Phase.AUTH;
             default -> false;
         };
     }
@@ -987,6 +1593,7 @@ public class Connection implements Closeable {
         final CancelRequest msg = new CancelRequest(Const.CANCEL_CODE, conn.pid, conn.secretKey);
         final Connection temp = new Connection(conn.config, false);
         temp.sendMessage(msg);
+        temp.flush();
         temp.close();
     }
 
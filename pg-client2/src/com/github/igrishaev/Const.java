@@ -10,8 +10,19 @@ public class Const {
     public static final String PG_HOST = "127.0.0.1";
     public static final int IN_STREAM_BUF_SIZE = 0xFFFF;
     public static final int OUT_STREAM_BUF_SIZE = 0xFFFF;
+    public static final int IN_BODY_BUF_SIZE = 0x2000;
+    public static final int IN_BODY_BUF_MAX_SIZE = 0x100000;
+    public static final int OUT_PAYLOAD_SIZE = 0x2000;
+    public static final int OUT_PAYLOAD_MAX_SIZE = 0x100000;
     public static final long EXE_MAX_ROWS = 0xFFFFFFFFL;
+    public static final int EXE_BATCH_CHUNK_SIZE = 1000;
+    public static final int PIPELINE_CHUNK_SIZE = 100;
+    public static final long CURSOR_FETCH_SIZE = 1000;
+    public static final int POOL_EXECUTOR_THREADS = 2;
+    public static final int POOL_LIFETIME_JITTER_DIVISOR = 20;
     public static final int JSON_ENC_BUF_SIZE = 256;
+    public static final int DECODE_BATCH_SIZE = 256;
+    public static final int DECODE_MAX_IN_FLIGHT_PER_CPU = 4;
     public static final String APP_NAME = "pg2";
     public static final String CLIENT_ENCODING = "UTF8";
     public static final char NULL_TAG = (char) 0;
@@ -0,0 +1,164 @@
+package com.github.igrishaev;
+
+import clojure.lang.IDeref;
+import clojure.lang.IFn;
+import clojure.lang.IReduceInit;
+import clojure.lang.RT;
+import com.github.igrishaev.msg.Bind;
+import com.github.igrishaev.msg.RowDescription;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// A named portal read by chunks of fetchSize rows. Lives inside a
+// transaction: a Sync outside of it would destroy the portal.
+public class Cursor implements Iterator<Object>, IReduceInit, Closeable {
+
+    private final Connection conn;
+    private final String portal;
+    private final Bind bind;
+    private final PreparedStatement statement;
+    private final boolean ownsStatement;
+    private final ExecuteParams executeParams;
+    private final long fetchSize;
+    private RowDescription rowDescription;
+    private Iterator<?> chunk;
+    private boolean isBound = false;
+    private boolean isDone = false;
+    private boolean isClosed = false;
+
+    Cursor (final Connection conn,
+            final String portal,
+            final Bind bind,
+            final PreparedStatement statement,
+            final boolean ownsStatement,
+            final ExecuteParams executeParams,
+            final long fetchSize
+    ) {
+        this.conn = conn;
+        this.portal = portal;
+        this.bind = bind;
+        this.statement = statement;
+        this.ownsStatement = ownsStatement;
+        this.executeParams = executeParams;
+        this.fetchSize = fetchSize;
+    }
+
+    public String getPortal () {
+        return portal;
+    }
+
+    public long getFetchSize () {
+        return fetchSize;
+    }
+
+    public boolean isDone () {
+        return isDone;
+    }
+
+    // the next chunk reduced with the cursor's reducer, or null at the end
+    public Object fetch () {
+        if (isClosed) {
+            throw new PGError("The cursor %s is closed", portal);
+        }
+        if (isDone) {
+            return null;
+        }
+        final Accum acc;
+        try {
+            acc = conn.fetchPortal(
+                    portal,
+                    isBound ? null : bind,
+                    rowDescription,
+                    executeParams,
+                    fetchSize
+            );
+        }
+        catch (PGError e) {
+            isDone = true;
+            throw e;
+        }
+        isBound = true;
+        if (rowDescription == null) {
+            rowDescription = acc.getLastRowDescription();
+        }
+        if (!acc.isPortalSuspended()) {
+            isDone = true;
+        }
+        return acc.getResult();
+    }
+
+    @Override
+    public boolean hasNext () {
+        while (chunk == null || !chunk.hasNext()) {
+            if (isDone) {
+                return false;
+            }
+            final Object result = fetch();
+            if (result == null) {
+                chunk = null;
+            }
+            else if (result instanceof Iterable<?> iterable) {
+                chunk = iterable.iterator();
+            }
+            else {
+                throw new PGError(
+                        "A cursor can only iterate a collection of rows, got: %s",
+                        result.getClass()
+                );
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Object next () {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return chunk.next();
+    }
+
+    public Stream<Object> stream () {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED),
+                false
+        ).onClose(this::close);
+    }
+
+    @Override
+    public Object reduce (final IFn f, final Object init) {
+        Object acc = init;
+        while (hasNext()) {
+            acc = f.invoke(acc, next());
+            if (RT.isReduced(acc)) {
+                return ((IDeref) acc).deref();
+            }
+        }
+        return acc;
+    }
+
+    @Override
+    public void close () {
+        if (!isClosed) {
+            isClosed = true;
+            isDone = true;
+            conn.closePortal(portal, ownsStatement ? statement : null);
+        }
+    }
+
+    @Override
+    public String toString () {
+        return String.format(
+                "<Cursor, portal: %s, fetch size: %s, SQL: %s>",
+                portal,
+                fetchSize,
+                statement.parse().query()
+        );
+    }
+}
@@ -9,6 +9,8 @@ import com.github.igrishaev.reducer.*;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import clojure.core$identity;
 import clojure.core$keyword;
@@ -31,7 +33,10 @@ public record ExecuteParams (
         int copyBufSize,
         List<List<Object>> copyInRows,
         List<Map<Object, Object>> copyInMaps,
-        List<Object> copyMapKeys
+        List<Object> copyMapKeys,
+        boolean lazy,
+        boolean parallelDecode,
+        Executor decodeExecutor
 ) {
 
     public static Builder builder() {
@@ -64,6 +69,9 @@ public record ExecuteParams (
         private List<List<Object>> copyInRows = null;
         private List<Map<Object, Object>> copyInMaps = null;
         List<Object> copyMapKeys = Collections.emptyList();
+        private boolean lazy = false;
+        private boolean parallelDecode = false;
+        private Executor decodeExecutor = ForkJoinPool.commonPool();
 
         public Builder params (final List<Object> params) {
             this.params = Objects.requireNonNull(params);
@@ -157,11 +165,38 @@ public record ExecuteParams (
             return this;
         }
 
+        public Builder asColumns () {
+            this.reducer = Columnar.INSTANCE;
+            return this;
+        }
+
+        public Builder rowFold (final IFn fnFold, final Object init) {
+            this.reducer = new RowFold(fnFold, init);
+            return this;
+        }
+
         public Builder rowCount (final long rowCount) {
             this.rowCount = rowCount;
             return this;
         }
 
+        // rows keep their raw bytes and decode a value on first access
+        public Builder lazy (final boolean lazy) {
+            this.lazy = lazy;
+            return this;
+        }
+
+        // rows get decoded in batches on the executor, see ParallelDecoder
+        public Builder parallelDecode (final boolean parallelDecode) {
+            this.parallelDecode = parallelDecode;
+            return this;
+        }
+
+        public Builder decodeExecutor (final Executor decodeExecutor) {
+            this.decodeExecutor = Objects.requireNonNull(decodeExecutor, "the decode executor cannot be null");
+            return this;
+        }
+
         public Builder binaryEncode (final boolean binaryEncode) {
             this.binaryEncode = binaryEncode;
             return this;
@@ -237,7 +272,10 @@ public record ExecuteParams (
                     copyBufSize,
                     copyInRows,
                     copyInMaps,
-                    copyMapKeys
+                    copyMapKeys,
+                    lazy,
+                    parallelDecode,
+                    decodeExecutor
             );
         }
     }
@@ -0,0 +1,11 @@
+package com.github.igrishaev;
+
+// Gets a trace for each query, execute, batch and copy call. Both methods
+// run on the connection's thread while it holds the connection, so they
+// should be quick. The trace is reused: copy what you need.
+public interface IQueryListener {
+
+    default void onStart (final QueryTrace trace) {}
+
+    default void onEnd (final QueryTrace trace) {}
+}
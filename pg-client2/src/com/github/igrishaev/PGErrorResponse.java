@@ -0,0 +1,24 @@
+package com.github.igrishaev;
+
+import com.github.igrishaev.msg.ErrorResponse;
+
+// a PGError that came from the server, with the SQLSTATE and
+// the other fields of the ErrorResponse
+public class PGErrorResponse extends PGError {
+
+    private final ErrorResponse errorResponse;
+
+    public PGErrorResponse (final ErrorResponse errorResponse) {
+        super("ErrorResponse: %s", errorResponse.fields());
+        this.errorResponse = errorResponse;
+    }
+
+    @SuppressWarnings("unused")
+    public ErrorResponse getErrorResponse () {
+        return errorResponse;
+    }
+
+    public String getCode () {
+        return errorResponse.fields().get("code");
+    }
+}
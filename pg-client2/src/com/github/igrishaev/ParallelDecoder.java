@@ -0,0 +1,77 @@
+package com.github.igrishaev;
+
+import com.github.igrishaev.reducer.LazyValues;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Decodes raw rows in batches on an executor while the connection keeps
+// reading the socket. Accum takes the batches back in the order they were
+// sent, so the reducer still sees the rows in order and on one thread.
+public final class ParallelDecoder {
+
+    private final Executor executor;
+    private final int maxInFlight;
+    private final ArrayDeque<CompletableFuture<Object[][]>> inFlight;
+    private LazyValues[] batch;
+    private int batchCount = 0;
+
+    public ParallelDecoder(final Executor executor) {
+        this.executor = executor;
+        this.maxInFlight = Runtime.getRuntime().availableProcessors()
+                * Const.DECODE_MAX_IN_FLIGHT_PER_CPU;
+        this.inFlight = new ArrayDeque<>(maxInFlight);
+        this.batch = new LazyValues[Const.DECODE_BATCH_SIZE];
+    }
+
+    private static Object[][] decode (final LazyValues[] rows, final int count) {
+        final Object[][] result = new Object[count][];
+        for (int i = 0; i < count; i++) {
+            result[i] = rows[i].decodeAll();
+        }
+        return result;
+    }
+
+    private void submit () {
+        final LazyValues[] rows = batch;
+        final int count = batchCount;
+        batch = new LazyValues[Const.DECODE_BATCH_SIZE];
+        batchCount = 0;
+        inFlight.add(CompletableFuture.supplyAsync(() -> decode(rows, count), executor));
+    }
+
+    public void add (final LazyValues row) {
+        batch[batchCount++] = row;
+        if (batchCount == batch.length) {
+            submit();
+        }
+    }
+
+    // The next decoded batch or null. Unless it's the end of the result,
+    // waits only when too many batches are in flight, which bounds memory.
+    // Throws CompletionException when decoding has failed.
+    public Object[][] poll (final boolean isEnd) {
+        if (isEnd && batchCount > 0) {
+            submit();
+        }
+        final CompletableFuture<Object[][]> head = inFlight.peek();
+        if (head == null) {
+            return null;
+        }
+        if (!isEnd && !head.isDone() && inFlight.size() < maxInFlight) {
+            return null;
+        }
+        inFlight.poll();
+        return head.join();
+    }
+
+    public void clear () {
+        for (CompletableFuture<Object[][]> future: inFlight) {
+            future.cancel(false);
+        }
+        inFlight.clear();
+        batch = new LazyValues[Const.DECODE_BATCH_SIZE];
+        batchCount = 0;
+    }
+}
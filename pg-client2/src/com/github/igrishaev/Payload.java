@@ -1,105 +1,144 @@
 package com.github.igrishaev;
 
-import com.github.igrishaev.util.BBTool;
-
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-
+import java.util.Arrays;
 
+// An append-only buffer for outgoing messages. A message starts with
+// begin(), which reserves its length; end() writes the length in place.
 public class Payload {
 
-    private Integer size;
-    private final ArrayList<Object> items;
+    private byte[] buf;
+    private int pos;
+    private int lengthPos;
 
     public Payload() {
-        size = 0;
-        items = new ArrayList<>();
+        this(64);
     }
 
-    public Payload addInteger(final Integer i) {
-        size += 4;
-        items.add(i);
-        return this;
+    public Payload(final int size) {
+        buf = new byte[size];
+        pos = 0;
+        lengthPos = -1;
+    }
+
+    private void ensure(final int extra) {
+        final int required = pos + extra;
+        if (required > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(required, buf.length * 2));
+        }
+    }
+
+    public Payload begin(final char tag) {
+        ensure(1);
+        buf[pos++] = (byte) tag;
+        return begin();
     }
 
-    public Payload addShort(final Short s) {
-        size += 2;
-        items.add(s);
+    // for the untagged startup messages
+    public Payload begin() {
+        lengthPos = pos;
+        return addInteger(0);
+    }
+
+    public Payload end() {
+        final int len = pos - lengthPos;
+        putInt(lengthPos, len);
+        lengthPos = -1;
         return this;
     }
 
-    public Payload addByte(final Byte b) {
-        size += 1;
-        items.add(b);
+    private void putInt(final int at, final int i) {
+        buf[at]     = (byte) (i >>> 24);
+        buf[at + 1] = (byte) (i >>> 16);
+        buf[at + 2] = (byte) (i >>> 8);
+        buf[at + 3] = (byte) i;
+    }
+
+    public Payload addInteger(final int i) {
+        ensure(4);
+        putInt(pos, i);
+        pos += 4;
         return this;
     }
 
-    public Payload addBytes(final byte[] buf) {
-        size += buf.length;
-        items.add(buf);
+    public Payload addShort(final short s) {
+        ensure(2);
+        buf[pos++] = (byte) (s >>> 8);
+        buf[pos++] = (byte) s;
         return this;
     }
 
-    public Payload addUnsignedShort (final Integer i) {
-        size += 2;
-        final ByteBuffer buf = ByteBuffer.allocate(4);
-        buf.putInt(i);
-        BBTool.skip(buf, -2);
-        items.add(buf);
+    public Payload addByte(final byte b) {
+        ensure(1);
+        buf[pos++] = b;
         return this;
     }
 
-    public Payload addUnsignedInteger (final Long l) {
-        size += 4;
-        final ByteBuffer buf = ByteBuffer.allocate(8);
-        buf.putLong(l);
-        BBTool.skip(buf, -4);
-        items.add(buf);
+    public Payload addBytes(final byte[] bytes) {
+        return addBytes(bytes, 0, bytes.length);
+    }
+
+    public Payload addBytes(final byte[] bytes, final int offset, final int len) {
+        ensure(len);
+        System.arraycopy(bytes, offset, buf, pos, len);
+        pos += len;
         return this;
     }
 
+    public Payload addUnsignedShort (final int i) {
+        return addShort((short) i);
+    }
+
+    public Payload addUnsignedInteger (final long l) {
+        return addInteger((int) l);
+    }
+
     public Payload addCString(final String s) {
         return addCString(s, StandardCharsets.UTF_8);
     }
 
+    // ASCII strings go straight into the buffer
     public Payload addCString(final String s, final Charset charset) {
-        final byte[] bytes = s.getBytes(charset);
-        size = size + bytes.length + 1;
-        items.add(bytes);
-        items.add((byte)0);
-        return this;
+        final int len = s.length();
+        if (charset == StandardCharsets.UTF_8 || charset == StandardCharsets.US_ASCII) {
+            ensure(len + 1);
+            int i = 0;
+            for (; i < len; i++) {
+                final char c = s.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                buf[pos + i] = (byte) c;
+            }
+            if (i == len) {
+                pos += len;
+                return addByte((byte) 0);
+            }
+        }
+        addBytes(s.getBytes(charset));
+        return addByte((byte) 0);
     }
 
-    public ByteBuffer toByteBuffer() {
-        return toByteBuffer(Const.NULL_TAG);
+    public byte[] array() {
+        return buf;
     }
 
-    public ByteBuffer toByteBuffer(char tag) {
-
-        ByteBuffer buf;
+    public int size() {
+        return pos;
+    }
 
-        if (tag == Const.NULL_TAG) {
-            buf = ByteBuffer.allocate(size + 4);
-        } else {
-            buf = ByteBuffer.allocate(size + 5);
-            buf.put((byte)tag);
+    // drops the content; a buffer grown by a huge message is released
+    public void clear() {
+        if (buf.length > Const.OUT_PAYLOAD_MAX_SIZE) {
+            buf = new byte[Const.OUT_PAYLOAD_SIZE];
         }
+        pos = 0;
+        lengthPos = -1;
+    }
 
-        buf.putInt(size + 4);
-
-        for(Object x: items) {
-            switch (x.getClass().getSimpleName()) {
-                case "Integer" -> buf.putInt((int)x);
-                case "Short" -> buf.putShort((short)x);
-                case "ByteBuffer", "HeapByteBuffer" -> buf.put((ByteBuffer)x);
-                case "Byte" -> buf.put((byte)x);
-                case "Long" -> buf.putLong((long)x);
-                case "byte[]" -> buf.put((byte[])x);
-                default -> throw new PGError("unsupported item: %s, type: %s", x, x.getClass());
-            }
-        }
-        return buf;
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(Arrays.copyOf(buf, pos));
     }
 }
@@ -0,0 +1,81 @@
+package com.github.igrishaev;
+
+import com.github.igrishaev.enums.PipelineMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// Queues statements and sends them in chunks, reading the results in
+// order. With SYNC_EACH, every step is followed by Sync and fails on
+// its own; with SYNC_ONCE, all the steps share one implicit transaction.
+public class Pipeline {
+
+    public record Step (
+            String sql,
+            PreparedStatement statement,
+            ExecuteParams executeParams
+    ) {}
+
+    private final Connection conn;
+    private final PipelineMode mode;
+    private final List<Step> steps;
+
+    public Pipeline (final Connection conn, final PipelineMode mode) {
+        this.conn = Objects.requireNonNull(conn);
+        this.mode = Objects.requireNonNull(mode);
+        this.steps = new ArrayList<>();
+    }
+
+    public PipelineMode getMode () {
+        return mode;
+    }
+
+    public List<Step> getSteps () {
+        return steps;
+    }
+
+    public int size () {
+        return steps.size();
+    }
+
+    public Pipeline execute (final String sql) {
+        return execute(sql, ExecuteParams.INSTANCE);
+    }
+
+    public Pipeline execute (final String sql, final List<Object> params) {
+        return execute(sql, ExecuteParams.builder().params(params).build());
+    }
+
+    public Pipeline execute (final String sql, final ExecuteParams executeParams) {
+        steps.add(new Step(
+                Objects.requireNonNull(sql),
+                null,
+                Objects.requireNonNull(executeParams)
+        ));
+        return this;
+    }
+
+    public Pipeline executeStatement (final PreparedStatement stmt, final ExecuteParams executeParams) {
+        steps.add(new Step(
+                null,
+                Objects.requireNonNull(stmt),
+                Objects.requireNonNull(executeParams)
+        ));
+        return this;
+    }
+
+    public List<Object> run () {
+        try {
+            return conn.runPipeline(this);
+        }
+        finally {
+            steps.clear();
+        }
+    }
+
+    @Override
+    public String toString () {
+        return String.format("<Pipeline, mode: %s, step(s): %s>", mode, steps.size());
+    }
+}
@@ -0,0 +1,168 @@
+package com.github.igrishaev;
+
+import clojure.lang.IPersistentMap;
+import clojure.lang.Keyword;
+import clojure.lang.PersistentHashMap;
+import com.github.igrishaev.enums.Phase;
+import com.github.igrishaev.util.IClojure;
+
+// Timestamps are System.nanoTime values, zero when the moment never came,
+// e.g. no RowDescription for an INSERT. A call may take a few round trips,
+// e.g. prepare and execute: sentAt is the last flush and firstByteAt is the
+// first message after it, so firstByteAt minus sentAt is the server time of
+// the last round trip. decodeNanos is the time spent turning DataRows into
+// values.
+public final class QueryTrace implements IClojure {
+
+    Phase phase;
+    String sql;
+    long startedAt;
+    long sentAt;
+    long firstByteAt;
+    long rowDescriptionAt;
+    long lastDataRowAt;
+    long readyForQueryAt;
+    long endedAt;
+    long decodeNanos;
+    long rowCount;
+    long bytesRead;
+    long bytesWritten;
+    Throwable error;
+
+    void start (final Phase phase, final String sql, final long bytesRead, final long bytesWritten) {
+        this.phase = phase;
+        this.sql = sql;
+        this.startedAt = System.nanoTime();
+        this.sentAt = 0;
+        this.firstByteAt = 0;
+        this.rowDescriptionAt = 0;
+        this.lastDataRowAt = 0;
+        this.readyForQueryAt = 0;
+        this.endedAt = 0;
+        this.decodeNanos = 0;
+        this.rowCount = 0;
+        // the counters are absolute until end() turns them into deltas
+        this.bytesRead = bytesRead;
+        this.bytesWritten = bytesWritten;
+        this.error = null;
+    }
+
+    // a new round trip, the first byte of the previous one doesn't count
+    void onSent () {
+        sentAt = System.nanoTime();
+        firstByteAt = 0;
+    }
+
+    void onMessage (final char tag) {
+        final long now = System.nanoTime();
+        if (firstByteAt == 0) {
+            firstByteAt = now;
+        }
+        switch (tag) {
+            case 'D' -> {
+                lastDataRowAt = now;
+                rowCount++;
+            }
+            case 'T' -> rowDescriptionAt = now;
+            case 'Z' -> readyForQueryAt = now;
+        }
+    }
+
+    void end (final long bytesRead, final long bytesWritten) {
+        this.endedAt = System.nanoTime();
+        this.bytesRead = bytesRead - this.bytesRead;
+        this.bytesWritten = bytesWritten - this.bytesWritten;
+    }
+
+    public Phase getPhase () {
+        return phase;
+    }
+
+    public String getSql () {
+        return sql;
+    }
+
+    public int getSqlHash () {
+        return sql == null ? 0 : sql.hashCode();
+    }
+
+    public long getStartedAt () {
+        return startedAt;
+    }
+
+    public long getSentAt () {
+        return sentAt;
+    }
+
+    public long getFirstByteAt () {
+        return firstByteAt;
+    }
+
+    public long getRowDescriptionAt () {
+        return rowDescriptionAt;
+    }
+
+    public long getLastDataRowAt () {
+        return lastDataRowAt;
+    }
+
+    public long getReadyForQueryAt () {
+        return readyForQueryAt;
+    }
+
+    public long getEndedAt () {
+        return endedAt;
+    }
+
+    public long getDecodeNanos () {
+        return decodeNanos;
+    }
+
+    public long getRowCount () {
+        return rowCount;
+    }
+
+    public long getBytesRead () {
+        return bytesRead;
+    }
+
+    public long getBytesWritten () {
+        return bytesWritten;
+    }
+
+    public Throwable getError () {
+        return error;
+    }
+
+    public IPersistentMap toClojure () {
+        return PersistentHashMap.create(
+                Keyword.intern("phase"), Keyword.intern(phase.name().toLowerCase()),
+                Keyword.intern("sql"), sql,
+                Keyword.intern("started-at"), startedAt,
+                Keyword.intern("sent-at"), sentAt,
+                Keyword.intern("first-byte-at"), firstByteAt,
+                Keyword.intern("row-description-at"), rowDescriptionAt,
+                Keyword.intern("last-data-row-at"), lastDataRowAt,
+                Keyword.intern("ready-for-query-at"), readyForQueryAt,
+                Keyword.intern("ended-at"), endedAt,
+                Keyword.intern("decode-nanos"), decodeNanos,
+                Keyword.intern("rows"), rowCount,
+                Keyword.intern("bytes-read"), bytesRead,
+                Keyword.intern("bytes-written"), bytesWritten,
+                Keyword.intern("error"), error
+        );
+    }
+
+    @Override
+    public String toString () {
+        return String.format(
+                "<Query trace, phase: %s, rows: %s, total: %sns, server: %sns, decode: %sns, SQL: %s>",
+                phase,
+                rowCount,
+                endedAt - startedAt,
+                firstByteAt == 0 ? 0 : firstByteAt - sentAt,
+                decodeNanos,
+                sql
+        );
+    }
+}
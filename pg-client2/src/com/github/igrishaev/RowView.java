@@ -0,0 +1,241 @@
+package com.github.igrishaev;
+
+import com.github.igrishaev.codec.CodecParams;
+import com.github.igrishaev.codec.DecoderBin;
+import com.github.igrishaev.codec.DecoderTxt;
+import com.github.igrishaev.enums.Format;
+import com.github.igrishaev.enums.OID;
+import com.github.igrishaev.msg.DataRow;
+import com.github.igrishaev.msg.RowDescription;
+import com.github.igrishaev.reducer.LazyValues;
+
+import java.nio.ByteBuffer;
+
+// Typed access to the current DataRow: the getters read numbers straight
+// from the receive buffer, so nothing gets boxed. One instance per
+// connection, valid only until the next message is read.
+public final class RowView {
+
+    private final CodecParams codecParams;
+    private CodecParams snapshot;
+    private DataRow row;
+    private RowDescription.Column[] cols;
+    private Object[] keys;
+
+    RowView(final CodecParams codecParams) {
+        this.codecParams = codecParams;
+    }
+
+    // the params have changed, the next lazy row takes a new copy
+    void resetSnapshot () {
+        snapshot = null;
+    }
+
+    RowView reset(final DataRow row, final RowDescription.Column[] cols, final Object[] keys) {
+        this.row = row;
+        this.cols = cols;
+        this.keys = keys;
+        return this;
+    }
+
+    @SuppressWarnings("unused")
+    public int size () {
+        return row.valueCount();
+    }
+
+    @SuppressWarnings("unused")
+    public Object key (final int i) {
+        return keys[i];
+    }
+
+    @SuppressWarnings("unused")
+    public OID oid (final int i) {
+        return cols[i].typeOid();
+    }
+
+    @SuppressWarnings("unused")
+    public int indexOf (final Object key) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        throw new PGError("no such column: %s", key);
+    }
+
+    public boolean isNull (final int i) {
+        return row.isNull(i);
+    }
+
+    public Object getObject (final int i) {
+        if (row.isNull(i)) {
+            return null;
+        }
+        return decode(row.buf(), row.offset(i), row.length(i), cols[i], codecParams);
+    }
+
+    // decodes a non-null value at the offset of a heap buffer,
+    // moving its position and limit; see LazyValues
+    public static Object decode (
+            final ByteBuffer buf,
+            final int offset,
+            final int length,
+            final RowDescription.Column col,
+            final CodecParams codecParams
+    ) {
+        return switch (col.format()) {
+            case TXT -> DecoderTxt.decode(
+                    new String(buf.array(), offset, length, codecParams.serverCharset),
+                    col.typeOid()
+            );
+            case BIN -> {
+                buf.limit(offset + length);
+                buf.position(offset);
+                yield DecoderBin.decode(buf, col.typeOid(), codecParams);
+            }
+        };
+    }
+
+    // copies the raw bytes of the row so that it outlives the receive
+    // buffer; the params are a copy shared until they change
+    public LazyValues toLazyValues () {
+        if (snapshot == null) {
+            snapshot = codecParams.copy();
+        }
+        final int size = row.valueCount();
+        if (size == 0) {
+            return new LazyValues(new byte[0], new int[0], cols, snapshot);
+        }
+        final int start = row.offset(0);
+        final int end = row.offset(size - 1) + Math.max(row.length(size - 1), 0);
+        final byte[] bytes = new byte[end - start];
+        System.arraycopy(row.buf().array(), start, bytes, 0, bytes.length);
+        // offset and length of each value in pairs, -1 length is null
+        final int[] bounds = new int[size * 2];
+        for (int i = 0; i < size; i++) {
+            bounds[i * 2] = row.offset(i) - start;
+            bounds[i * 2 + 1] = row.length(i);
+        }
+        return new LazyValues(bytes, bounds, cols, snapshot);
+    }
+
+    public String getString (final int i) {
+        if (row.isNull(i)) {
+            return null;
+        }
+        return new String(row.buf().array(), row.offset(i), row.length(i), codecParams.serverCharset);
+    }
+
+    public long getLong (final int i) {
+        checkNull(i);
+        final OID oid = cols[i].typeOid();
+        final int offset = row.offset(i);
+        if (cols[i].format() == Format.BIN) {
+            return switch (oid) {
+                case INT2 -> (short) readBin(offset, 2);
+                case INT4 -> (int) readBin(offset, 4);
+                case OID -> readBin(offset, 4);
+                case INT8 -> readBin(offset, 8);
+                default -> toNumber(i).longValue();
+            };
+        }
+        return switch (oid) {
+            case INT2, INT4, OID, INT8 -> readTxtLong(i);
+            default -> toNumber(i).longValue();
+        };
+    }
+
+    public int getInt (final int i) {
+        checkNull(i);
+        if (cols[i].format() == Format.BIN) {
+            final int offset = row.offset(i);
+            switch (cols[i].typeOid()) {
+                case INT2: return (short) readBin(offset, 2);
+                case INT4: return (int) readBin(offset, 4);
+            }
+        }
+        final long value = getLong(i);
+        if (value != (int) value) {
+            throw new PGError("value %s in column %s does not fit an int", value, i);
+        }
+        return (int) value;
+    }
+
+    public double getDouble (final int i) {
+        checkNull(i);
+        final OID oid = cols[i].typeOid();
+        if (cols[i].format() == Format.BIN) {
+            final int offset = row.offset(i);
+            return switch (oid) {
+                case FLOAT4 -> Float.intBitsToFloat((int) readBin(offset, 4));
+                case FLOAT8 -> Double.longBitsToDouble(readBin(offset, 8));
+                case INT2, INT4, OID, INT8 -> getLong(i);
+                default -> toNumber(i).doubleValue();
+            };
+        }
+        return switch (oid) {
+            case FLOAT4, FLOAT8 -> Double.parseDouble(getString(i));
+            case INT2, INT4, OID, INT8 -> readTxtLong(i);
+            default -> toNumber(i).doubleValue();
+        };
+    }
+
+    public boolean getBoolean (final int i) {
+        checkNull(i);
+        if (cols[i].typeOid() != OID.BOOL) {
+            throw new PGError("column %s is not a boolean: %s", i, cols[i].typeOid());
+        }
+        final byte b = row.buf().array()[row.offset(i)];
+        if (cols[i].format() == Format.BIN) {
+            return b == 1;
+        }
+        return b == 't';
+    }
+
+    private void checkNull (final int i) {
+        if (row.isNull(i)) {
+            throw new PGError("column %s is null, check it with isNull first", i);
+        }
+    }
+
+    private Number toNumber (final int i) {
+        final Object value = getObject(i);
+        if (value instanceof Number n) {
+            return n;
+        }
+        throw new PGError("column %s is not a number: %s", i, cols[i].typeOid());
+    }
+
+    // big-endian, unsigned for len < 8
+    private long readBin (final int offset, final int len) {
+        final byte[] array = row.buf().array();
+        long result = 0;
+        for (int j = 0; j < len; j++) {
+            result = (result << 8) | (array[offset + j] & 0xFF);
+        }
+        return result;
+    }
+
+    // an integer column in text is an optional minus and ASCII digits
+    private long readTxtLong (final int i) {
+        final byte[] array = row.buf().array();
+        final int offset = row.offset(i);
+        final int end = offset + row.length(i);
+        final boolean isNegative = array[offset] == '-';
+        long result = 0;
+        for (int j = isNegative ? offset + 1 : offset; j < end; j++) {
+            final int digit = array[j] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new PGError("wrong integer value: %s", getString(i));
+            }
+            // accumulate negatively so that Long.MIN_VALUE fits
+            result = result * 10 - digit;
+        }
+        return isNegative ? result : -result;
+    }
+
+    @Override
+    public String toString () {
+        return String.format("RowView[size=%s]", row == null ? 0 : row.valueCount());
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.igrishaev;
+
+import clojure.lang.IPersistentMap;
+import clojure.lang.Keyword;
+import clojure.lang.PersistentHashMap;
+import com.github.igrishaev.enums.OID;
+import com.github.igrishaev.util.IClojure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StatementCache {
+
+    public record Key (String sql, List<OID> OIDs) {
+        public static Key of (final String sql, final OID[] OIDs) {
+            return new Key(sql, Arrays.asList(OIDs));
+        }
+    }
+
+    public record Stats (int size,
+                         int maxSize,
+                         long hits,
+                         long misses,
+                         long evictions)
+            implements IClojure {
+
+        public IPersistentMap toClojure () {
+            return PersistentHashMap.create(
+                    Keyword.intern("size"), size,
+                    Keyword.intern("max-size"), maxSize,
+                    Keyword.intern("hits"), hits,
+                    Keyword.intern("misses"), misses,
+                    Keyword.intern("evictions"), evictions
+            );
+        }
+    }
+
+    private final int maxSize;
+    private final LinkedHashMap<Key, PreparedStatement> cache;
+    private final ArrayList<PreparedStatement> evicted;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public StatementCache (final int maxSize) {
+        this.maxSize = maxSize;
+        this.evicted = new ArrayList<>();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry (final Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    evicted.add(eldest.getValue());
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public boolean isEnabled () {
+        return maxSize > 0;
+    }
+
+    public PreparedStatement get (final Key key) {
+        final PreparedStatement stmt = cache.get(key);
+        if (stmt == null) {
+            misses++;
+        }
+        else {
+            hits++;
+        }
+        return stmt;
+    }
+
+    public void put (final Key key, final PreparedStatement stmt) {
+        cache.put(key, stmt);
+    }
+
+    public void invalidate (final Key key) {
+        final PreparedStatement stmt = cache.remove(key);
+        if (stmt != null) {
+            evicted.add(stmt);
+        }
+    }
+
+    public boolean hasEvicted () {
+        return !evicted.isEmpty();
+    }
+
+    public List<PreparedStatement> pollEvicted () {
+        final List<PreparedStatement> result = new ArrayList<>(evicted);
+        evicted.clear();
+        return result;
+    }
+
+    public Stats getStats () {
+        return new Stats(cache.size(), maxSize, hits, misses, evictions);
+    }
+
+    @Override
+    public String toString () {
+        return String.format(
+                "<Statement cache, size: %s, max size: %s, hits: %s, misses: %s, evictions: %s>",
+                cache.size(), maxSize, hits, misses, evictions
+        );
+    }
+}
@@ -17,4 +17,16 @@ public class CodecParams {
         return new CodecParams();
     }
 
+    // the connection changes its params on ParameterStatus,
+    // so values decoded later or elsewhere need their own copy
+    public CodecParams copy () {
+        final CodecParams result = new CodecParams();
+        result.clientCharset = clientCharset;
+        result.serverCharset = serverCharset;
+        result.timeZone = timeZone;
+        result.dateStyle = dateStyle;
+        result.integerDatetime = integerDatetime;
+        return result;
+    }
+
 }
@@ -1,90 +1,203 @@
 package com.github.igrishaev.codec;
 
+import com.github.igrishaev.PGError;
+
 import java.time.*;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
-import java.time.temporal.ChronoField;
 import java.time.temporal.Temporal;
 
+// Parses and prints the ISO DateStyle the server uses in text mode:
+// YYYY-MM-DD HH:MM:SS[.ffffff][+HH[:MM[:SS]]][ BC]. The year may have
+// more than four digits; BC years come with a suffix. The infinity and
+// -infinity values map to the MAX and MIN constants of java.time.
 public class DateTimeTxt {
 
-    private static final DateTimeFormatter frmt_decode_timestamptz;
-    private static final DateTimeFormatter frmt_decode_timestamp;
-    private static final DateTimeFormatter frmt_decode_date;
-    private static final DateTimeFormatter frmt_decode_timetz;
-    private static final DateTimeFormatter frmt_decode_time;
-
-    private static final DateTimeFormatter frmt_encode_timestamptz;
-    private static final DateTimeFormatter frmt_encode_timestamp;
-    private static final DateTimeFormatter frmt_encode_date;
-    private static final DateTimeFormatter frmt_encode_timetz;
-    private static final DateTimeFormatter frmt_encode_time;
-
-    static {
-        frmt_decode_timestamptz = new DateTimeFormatterBuilder()
-                .appendPattern("yyyy-MM-dd HH:mm:ss")
-                .appendFraction(ChronoField.MICRO_OF_SECOND, 0, 6, true)
-                .appendPattern("x")
-                .toFormatter()
-                .withZone(ZoneOffset.UTC);
+    private static final String INFINITY = "infinity";
+    private static final String NEG_INFINITY = "-infinity";
+    private static final String BC = " BC";
+    private static final int NANO_DIGITS = 9;
+    private static final int MICRO_DIGITS = 6;
 
-        frmt_decode_timestamp = new DateTimeFormatterBuilder()
-                .appendPattern("yyyy-MM-dd HH:mm:ss")
-                .appendFraction(ChronoField.MICRO_OF_SECOND, 0, 6, true)
-                .toFormatter();
-
-        frmt_decode_date = new DateTimeFormatterBuilder()
-                .appendPattern("yyyy-MM-dd")
-                .toFormatter();
-
-        frmt_decode_timetz = new DateTimeFormatterBuilder()
-                .appendPattern("HH:mm:ss")
-                .appendFraction(ChronoField.MICRO_OF_SECOND, 0, 6, true)
-                .appendPattern("x")
-                .toFormatter()
-                .withZone(ZoneOffset.UTC);
+    //
+    // Decoding
+    //
+    public static OffsetDateTime decodeTIMESTAMPTZ (final String input) {
+        if (input.equals(INFINITY)) {
+            return OffsetDateTime.MAX;
+        }
+        if (input.equals(NEG_INFINITY)) {
+            return OffsetDateTime.MIN;
+        }
+        final boolean isBC = input.endsWith(BC);
+        final int end = isBC ? input.length() - BC.length() : input.length();
+        final int dateEnd = dateEnd(input, "timestamptz");
+        final LocalDate date = parseDate(input, dateEnd, isBC, "timestamptz");
+        expect(input, dateEnd, ' ', "timestamptz");
+        final int timeEnd = timeEnd(input, dateEnd + 1, end, "timestamptz");
+        final LocalTime time = parseTime(input, dateEnd + 1, timeEnd, "timestamptz");
+        final ZoneOffset offset = parseOffset(input, timeEnd, end, "timestamptz");
+        return OffsetDateTime.of(date, time, offset);
+    }
 
-        frmt_decode_time = new DateTimeFormatterBuilder()
-                .appendPattern("HH:mm:ss")
-                .appendFraction(ChronoField.MICRO_OF_SECOND, 0, 6, true)
-                .toFormatter();
+    public static LocalDateTime decodeTIMESTAMP (final String input) {
+        if (input.equals(INFINITY)) {
+            return LocalDateTime.MAX;
+        }
+        if (input.equals(NEG_INFINITY)) {
+            return LocalDateTime.MIN;
+        }
+        final boolean isBC = input.endsWith(BC);
+        final int end = isBC ? input.length() - BC.length() : input.length();
+        final int dateEnd = dateEnd(input, "timestamp");
+        final LocalDate date = parseDate(input, dateEnd, isBC, "timestamp");
+        expect(input, dateEnd, ' ', "timestamp");
+        final LocalTime time = parseTime(input, dateEnd + 1, end, "timestamp");
+        return LocalDateTime.of(date, time);
+    }
 
-        frmt_encode_timestamptz = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSSx")
-                .withZone(ZoneOffset.UTC);
+    public static LocalDate decodeDATE (final String input) {
+        if (input.equals(INFINITY)) {
+            return LocalDate.MAX;
+        }
+        if (input.equals(NEG_INFINITY)) {
+            return LocalDate.MIN;
+        }
+        final boolean isBC = input.endsWith(BC);
+        final int end = isBC ? input.length() - BC.length() : input.length();
+        if (dateEnd(input, "date") != end) {
+            throw parseError(input, "date");
+        }
+        return parseDate(input, end, isBC, "date");
+    }
 
-        frmt_encode_timestamp = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS")
-                .withZone(ZoneOffset.UTC);
+    public static OffsetTime decodeTIMETZ (final String input) {
+        final int timeEnd = timeEnd(input, 0, input.length(), "timetz");
+        final LocalTime time = parseTime(input, 0, timeEnd, "timetz");
+        final ZoneOffset offset = parseOffset(input, timeEnd, input.length(), "timetz");
+        return OffsetTime.of(time, offset);
+    }
 
-        frmt_encode_date = DateTimeFormatter.ofPattern("yyyy-MM-dd")
-                .withZone(ZoneOffset.UTC);
+    public static LocalTime decodeTIME (final String input) {
+        return parseTime(input, 0, input.length(), "time");
+    }
 
-        frmt_encode_timetz = DateTimeFormatter.ofPattern("HH:mm:ss.SSSSSSx");
+    private static PGError parseError (final String input, final String type) {
+        return new PGError("wrong %s value: %s", type, input);
+    }
 
-        frmt_encode_time = DateTimeFormatter.ofPattern("HH:mm:ss.SSSSSS");
+    private static void expect (final String input, final int i, final char c, final String type) {
+        if (i >= input.length() || input.charAt(i) != c) {
+            throw parseError(input, type);
+        }
+    }
 
+    private static int parseDigits (final String input, final int start, final int end, final String type) {
+        if (start >= end || end > input.length()) {
+            throw parseError(input, type);
+        }
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            final int digit = input.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw parseError(input, type);
+            }
+            result = result * 10 + digit;
+        }
+        return result;
     }
 
-    //
-    // Decoding
-    //
-    public static OffsetDateTime decodeTIMESTAMPTZ (final String input) {
-        return OffsetDateTime.parse(input, frmt_decode_timestamptz);
+    // the year has four digits or more, so the date ends six chars
+    // after the first dash
+    private static int dateEnd (final String input, final String type) {
+        final int dash = input.indexOf('-', 4);
+        if (dash == -1) {
+            throw parseError(input, type);
+        }
+        return dash + 6;
     }
 
-    public static LocalDateTime decodeTIMESTAMP (final String input) {
-        return LocalDateTime.parse(input, frmt_decode_timestamp);
+    private static LocalDate parseDate (final String input, final int end, final boolean isBC, final String type) {
+        final int dash = end - 6;
+        final int year = parseDigits(input, 0, dash, type);
+        expect(input, dash, '-', type);
+        final int month = parseDigits(input, dash + 1, dash + 3, type);
+        expect(input, dash + 3, '-', type);
+        final int day = parseDigits(input, dash + 4, end, type);
+        try {
+            return LocalDate.of(isBC ? 1 - year : year, month, day);
+        }
+        catch (DateTimeException e) {
+            throw parseError(input, type);
+        }
     }
 
-    public static LocalDate decodeDATE (final String input) {
-        return LocalDate.parse(input, frmt_decode_date);
+    // HH:MM:SS with an optional fraction
+    private static int timeEnd (final String input, final int start, final int end, final String type) {
+        int i = start + 8;
+        if (i < end && input.charAt(i) == '.') {
+            i++;
+            while (i < end && Character.isDigit(input.charAt(i))) {
+                i++;
+            }
+        }
+        if (i > end) {
+            throw parseError(input, type);
+        }
+        return i;
     }
 
-    public static OffsetTime decodeTIMETZ (final String input) {
-        return OffsetTime.parse(input, frmt_decode_timetz);
+    private static LocalTime parseTime (final String input, final int start, final int end, final String type) {
+        final int hour = parseDigits(input, start, start + 2, type);
+        expect(input, start + 2, ':', type);
+        final int minute = parseDigits(input, start + 3, start + 5, type);
+        expect(input, start + 5, ':', type);
+        final int second = parseDigits(input, start + 6, start + 8, type);
+        int nano = 0;
+        if (end > start + 8) {
+            expect(input, start + 8, '.', type);
+            final int fracLen = end - start - 9;
+            if (fracLen > NANO_DIGITS) {
+                throw parseError(input, type);
+            }
+            nano = parseDigits(input, start + 9, end, type);
+            for (int i = fracLen; i < NANO_DIGITS; i++) {
+                nano *= 10;
+            }
+        }
+        try {
+            return LocalTime.of(hour, minute, second, nano);
+        }
+        catch (DateTimeException e) {
+            throw parseError(input, type);
+        }
     }
 
-    public static LocalTime decodeTIME (final String input) {
-        return LocalTime.parse(input, frmt_decode_time);
+    // +HH, +HH:MM or +HH:MM:SS, the latter for historic local times
+    private static ZoneOffset parseOffset (final String input, final int start, final int end, final String type) {
+        if (start >= end) {
+            throw parseError(input, type);
+        }
+        final char sign = input.charAt(start);
+        if (sign != '+' && sign != '-') {
+            throw parseError(input, type);
+        }
+        int seconds = parseDigits(input, start + 1, start + 3, type) * 3600;
+        if (end > start + 3) {
+            expect(input, start + 3, ':', type);
+            seconds += parseDigits(input, start + 4, start + 6, type) * 60;
+        }
+        if (end > start + 6) {
+            expect(input, start + 6, ':', type);
+            seconds += parseDigits(input, start + 7, start + 9, type);
+        }
+        if (end > start + 9) {
+            throw parseError(input, type);
+        }
+        try {
+            return ZoneOffset.ofTotalSeconds(sign == '-' ? -seconds : seconds);
+        }
+        catch (DateTimeException e) {
+            throw parseError(input, type);
+        }
     }
 
     //
@@ -93,23 +206,136 @@ public class DateTimeTxt {
 
     // Temporal
     public static String encodeTIMESTAMPTZ (final Temporal t) {
-        return frmt_encode_timestamptz.format(t);
+        final String special = encodeInfinity(t);
+        if (special != null) {
+            return special;
+        }
+        final LocalDateTime dt = toUTC(t);
+        final StringBuilder sb = new StringBuilder(36);
+        appendDate(sb, dt.toLocalDate());
+        sb.append(' ');
+        appendTime(sb, dt.toLocalTime());
+        sb.append("+00");
+        return appendEra(sb, dt.getYear()).toString();
     }
 
     public static String encodeTIMESTAMP (final Temporal t) {
-        return frmt_encode_timestamp.format(t);
+        final String special = encodeInfinity(t);
+        if (special != null) {
+            return special;
+        }
+        final LocalDateTime dt = toUTC(t);
+        final StringBuilder sb = new StringBuilder(32);
+        appendDate(sb, dt.toLocalDate());
+        sb.append(' ');
+        appendTime(sb, dt.toLocalTime());
+        return appendEra(sb, dt.getYear()).toString();
     }
 
     public static String encodeDATE (final Temporal t) {
-        return frmt_encode_date.format(t);
+        final String special = encodeInfinity(t);
+        if (special != null) {
+            return special;
+        }
+        final LocalDate date = t instanceof LocalDate ld ? ld : toUTC(t).toLocalDate();
+        final StringBuilder sb = new StringBuilder(16);
+        appendDate(sb, date);
+        return appendEra(sb, date.getYear()).toString();
     }
 
     public static String encodeTIMETZ (final Temporal t) {
-        return frmt_encode_timetz.format(t);
+        final OffsetTime time = OffsetTime.from(t);
+        final StringBuilder sb = new StringBuilder(24);
+        appendTime(sb, time.toLocalTime());
+        appendOffset(sb, time.getOffset().getTotalSeconds());
+        return sb.toString();
     }
 
     public static String encodeTIME (final Temporal t) {
-        return frmt_encode_time.format(t);
+        final StringBuilder sb = new StringBuilder(16);
+        appendTime(sb, LocalTime.from(t));
+        return sb.toString();
+    }
+
+    private static String encodeInfinity (final Temporal t) {
+        if (t.equals(OffsetDateTime.MAX) || t.equals(LocalDateTime.MAX)
+                || t.equals(LocalDate.MAX) || t.equals(Instant.MAX)) {
+            return INFINITY;
+        }
+        if (t.equals(OffsetDateTime.MIN) || t.equals(LocalDateTime.MIN)
+                || t.equals(LocalDate.MIN) || t.equals(Instant.MIN)) {
+            return NEG_INFINITY;
+        }
+        return null;
+    }
+
+    // local date and time are taken as they are, anything else
+    // is moved to UTC
+    private static LocalDateTime toUTC (final Temporal t) {
+        if (t instanceof LocalDateTime ldt) {
+            return ldt;
+        }
+        if (t instanceof LocalDate ld) {
+            return ld.atStartOfDay();
+        }
+        if (t instanceof OffsetDateTime odt) {
+            return LocalDateTime.ofEpochSecond(odt.toEpochSecond(), odt.getNano(), ZoneOffset.UTC);
+        }
+        if (t instanceof ZonedDateTime zdt) {
+            return LocalDateTime.ofEpochSecond(zdt.toEpochSecond(), zdt.getNano(), ZoneOffset.UTC);
+        }
+        final Instant inst = Instant.from(t);
+        return LocalDateTime.ofEpochSecond(inst.getEpochSecond(), inst.getNano(), ZoneOffset.UTC);
+    }
+
+    private static void appendPadded (final StringBuilder sb, final int value, final int width) {
+        for (int limit = 10, i = 1; i < width; i++, limit *= 10) {
+            if (value < limit) {
+                sb.append('0');
+            }
+        }
+        sb.append(value);
+    }
+
+    // year 0 is 1 BC, year -1 is 2 BC and so on
+    private static void appendDate (final StringBuilder sb, final LocalDate date) {
+        final int year = date.getYear();
+        appendPadded(sb, year > 0 ? year : 1 - year, 4);
+        sb.append('-');
+        appendPadded(sb, date.getMonthValue(), 2);
+        sb.append('-');
+        appendPadded(sb, date.getDayOfMonth(), 2);
+    }
+
+    private static StringBuilder appendEra (final StringBuilder sb, final int year) {
+        return year > 0 ? sb : sb.append(BC);
+    }
+
+    // microseconds always, the server keeps no more
+    private static void appendTime (final StringBuilder sb, final LocalTime time) {
+        appendPadded(sb, time.getHour(), 2);
+        sb.append(':');
+        appendPadded(sb, time.getMinute(), 2);
+        sb.append(':');
+        appendPadded(sb, time.getSecond(), 2);
+        sb.append('.');
+        appendPadded(sb, time.getNano() / 1000, MICRO_DIGITS);
+    }
+
+    private static void appendOffset (final StringBuilder sb, final int totalSeconds) {
+        final int abs = Math.abs(totalSeconds);
+        sb.append(totalSeconds < 0 ? '-' : '+');
+        appendPadded(sb, abs / 3600, 2);
+        final int minutes = abs / 60 % 60;
+        final int seconds = abs % 60;
+        if (minutes != 0 || seconds != 0) {
+            sb.append(':');
+            appendPadded(sb, minutes, 2);
+        }
+        if (seconds != 0) {
+            sb.append(':');
+            appendPadded(sb, seconds, 2);
+        }
     }
 
 }
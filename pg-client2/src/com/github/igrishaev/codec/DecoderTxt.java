@@ -27,7 +27,12 @@ public class DecoderTxt {
             case UUID -> UUID.fromString(string);
             case FLOAT4 -> Float.parseFloat(string);
             case FLOAT8 -> Double.parseDouble(string);
-            case NUMERIC -> new BigDecimal(string);
+            case NUMERIC -> switch (string) {
+                    case "NaN" -> Double.NaN;
+                    case "Infinity" -> Double.POSITIVE_INFINITY;
+                    case "-Infinity" -> Double.NEGATIVE_INFINITY;
+                    default -> new BigDecimal(string);
+            };
             case BOOL -> switch (string) {
                     case "t" -> true;
                     case "f" -> false;
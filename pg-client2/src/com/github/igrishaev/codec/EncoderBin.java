@@ -93,6 +93,7 @@ public class EncoderBin {
                 case INT8 -> BBTool.ofLong((short)x);
                 case FLOAT4 -> BBTool.ofFloat((short)x);
                 case FLOAT8 -> BBTool.ofDouble((short)x);
+                case NUMERIC -> NumericBin.encode((short)x);
                 default -> binEncodingError(x, oid);
             };
 
@@ -102,6 +103,7 @@ public class EncoderBin {
                 case INT8 -> BBTool.ofLong((int)x);
                 case FLOAT4 -> BBTool.ofFloat((int)x);
                 case FLOAT8 -> BBTool.ofDouble((int)x);
+                case NUMERIC -> NumericBin.encode((int)x);
                 default -> binEncodingError(x, oid);
             };
 
@@ -111,6 +113,7 @@ public class EncoderBin {
                 case INT8, DEFAULT -> BBTool.ofLong((long)x);
                 case FLOAT4 -> BBTool.ofFloat((long)x);
                 case FLOAT8 -> BBTool.ofDouble((long)x);
+                case NUMERIC -> NumericBin.encode((long)x);
                 default -> binEncodingError(x, oid);
             };
 
@@ -147,6 +150,7 @@ public class EncoderBin {
             case "java.lang.Float" -> switch (oid) {
                 case FLOAT4, DEFAULT -> BBTool.ofFloat((float)x);
                 case FLOAT8 -> BBTool.ofDouble((float)x);
+                case NUMERIC -> NumericBin.encode((float)x);
                 default -> binEncodingError(x, oid);
             };
 
@@ -164,6 +168,7 @@ public class EncoderBin {
                     yield BBTool.ofFloat(f);
                 }
                 case FLOAT8, DEFAULT -> BBTool.ofDouble((double)x);
+                case NUMERIC -> NumericBin.encode((double)x);
                 default -> binEncodingError(x, oid);
             };
 
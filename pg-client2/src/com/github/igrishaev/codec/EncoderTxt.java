@@ -146,19 +146,15 @@ public class EncoderTxt {
 
             case "java.time.LocalDate" -> switch (oid) {
                 case DATE, DEFAULT -> DateTimeTxt.encodeDATE(((LocalDate)x));
-                case TIMESTAMP -> DateTimeTxt.encodeTIMESTAMP(
-                        ((LocalDate)x).atStartOfDay(ZoneOffset.UTC).toInstant()
-                );
-                case TIMESTAMPTZ -> DateTimeTxt.encodeTIMESTAMPTZ(
-                        ((LocalDate)x).atStartOfDay(ZoneOffset.UTC).toInstant()
-                );
+                case TIMESTAMP -> DateTimeTxt.encodeTIMESTAMP(((LocalDate)x));
+                case TIMESTAMPTZ -> DateTimeTxt.encodeTIMESTAMPTZ(((LocalDate)x));
                 default -> txtEncodingError(x, oid);
             };
 
             case "java.time.LocalDateTime" -> switch (oid) {
                 case DATE -> DateTimeTxt.encodeDATE(((LocalDateTime)x).toLocalDate());
-                case TIMESTAMP, DEFAULT -> DateTimeTxt.encodeTIMESTAMP(((LocalDateTime)x).toInstant(ZoneOffset.UTC));
-                case TIMESTAMPTZ -> DateTimeTxt.encodeTIMESTAMPTZ(((LocalDateTime)x).toInstant(ZoneOffset.UTC));
+                case TIMESTAMP, DEFAULT -> DateTimeTxt.encodeTIMESTAMP(((LocalDateTime)x));
+                case TIMESTAMPTZ -> DateTimeTxt.encodeTIMESTAMPTZ(((LocalDateTime)x));
                 default -> txtEncodingError(x, oid);
             };
 
@@ -1,84 +1,240 @@
 package com.github.igrishaev.codec;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.nio.ByteBuffer;
 
+// The binary numeric is a sign, a scale, a weight and digits in base
+// 10000, the first of them multiplied by 10000^weight. Both ways are
+// plain arithmetic on long when the unscaled value fits, and on
+// BigInteger in chunks of four digits otherwise.
 public class NumericBin {
 
     private final static int NUMERIC_POS = 0x0000;
     private final static int NUMERIC_NEG = 0x4000;
     private final static int NUMERIC_NAN = 0xC000;
+    private final static int NUMERIC_PINF = 0xD000;
+    private final static int NUMERIC_NINF = 0xF000;
+    private final static int NUMERIC_DSCALE_MASK = 0x3FFF;
 
-    public static ByteBuffer encode(final BigDecimal value) {
-        final int scale = value.scale();
-        final String[] parts = value.toPlainString().split("\\.");
-        final String lead = parts[0];
-        final boolean isNegative = lead.startsWith("-");
-        final String hi = isNegative ? lead.substring(1) : lead;
-        final String lo = parts.length > 1 ? parts[1] : "";
-        final int hiLen = hi.length();
-        final int loLen = lo.length();
-        final int sign = isNegative ? NUMERIC_NEG : NUMERIC_POS;
-        final int weight = hiLen / 4;
-        final int padLeft = 4 - hiLen % 4;
-        final int padRight = 4 - (padLeft + hiLen + loLen) % 4;
-        final String digitsStr = "0".repeat(padLeft) + hi + lo + "0".repeat(padRight);
-        final int digitsNum = digitsStr.length() / 4;
-        final short[] shorts = new short[digitsNum];
+    private final static int NBASE = 10000;
+    private final static int DEC_DIGITS = 4;
 
-        for (int i = 0; i < digitsNum; i++) {
-            int idxStart = i * 4;
-            int idxEnd = idxStart + 4;
-            String part = digitsStr.substring(idxStart, idxEnd);
-            shorts[i] = Short.parseShort(part);
+    // a long holds four base-10000 digits for sure
+    private final static int LONG_DIGITS = 4;
+    private final static BigInteger BIG_CHUNK = BigInteger.valueOf((long) NBASE * NBASE * NBASE * NBASE);
+
+    private final static long[] POW10 = new long[19];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
         }
+    }
 
-        final int bbLen = 8 + 2 * digitsNum;
-        final ByteBuffer bb = ByteBuffer.allocate(bbLen);
+    private static ByteBuffer header (final int digitsNum, final int weight, final int sign, final int scale) {
+        final ByteBuffer bb = ByteBuffer.allocate(8 + 2 * digitsNum);
         bb.putShort((short) digitsNum);
         bb.putShort((short) weight);
         bb.putShort((short) sign);
         bb.putShort((short) scale);
+        return bb;
+    }
 
-        for (final Short sh: shorts) {
-            bb.putShort(sh);
+    // digits come from the lowest to the highest one; the layout is the
+    // same the former string-based encoder had: scale / 4 + 1 fraction
+    // digits and one integer digit more than the integer part needs
+    private static ByteBuffer build (
+            final short[] reversed,
+            int count,
+            final int fracDigitsNum,
+            final boolean isNegative,
+            final int scale
+    ) {
+        while (count > 0 && reversed[count - 1] == 0) {
+            count--;
+        }
+        int intDigitsNum = count - fracDigitsNum;
+        if (intDigitsNum <= 0) {
+            intDigitsNum = 1;
+        }
+        else if (reversed[count - 1] >= NBASE / 10) {
+            intDigitsNum++;
+        }
+        final int digitsNum = fracDigitsNum + intDigitsNum;
+        final int sign = isNegative && count > 0 ? NUMERIC_NEG : NUMERIC_POS;
+        final ByteBuffer bb = header(digitsNum, intDigitsNum - 1, sign, scale);
+        for (int i = digitsNum - 1; i >= 0; i--) {
+            bb.putShort(reversed[i]);
         }
-
         return bb;
     }
 
-    public static BigDecimal decode(final ByteBuffer bb) {
-        final short digitsNum = bb.getShort();
+    private static ByteBuffer encodeLong (
+            final long unscaled,
+            final int fracDigitsNum,
+            final boolean isNegative,
+            final int scale
+    ) {
+        final short[] reversed = new short[fracDigitsNum + 6];
+        int count = 0;
+        long rest = unscaled;
+        while (rest != 0) {
+            reversed[count++] = (short) (rest % NBASE);
+            rest /= NBASE;
+        }
+        return build(reversed, count, fracDigitsNum, isNegative, scale);
+    }
+
+    private static ByteBuffer encodeBig (
+            final BigInteger unscaled,
+            final int fracDigitsNum,
+            final boolean isNegative,
+            final int scale
+    ) {
+        final short[] reversed = new short[unscaled.bitLength() / 13 + LONG_DIGITS + fracDigitsNum + 2];
+        int count = 0;
+        BigInteger rest = unscaled;
+        while (rest.signum() != 0) {
+            final BigInteger[] qr = rest.divideAndRemainder(BIG_CHUNK);
+            long chunk = qr[1].longValue();
+            rest = qr[0];
+            for (int i = 0; i < LONG_DIGITS; i++) {
+                reversed[count++] = (short) (chunk % NBASE);
+                chunk /= NBASE;
+            }
+        }
+        return build(reversed, count, fracDigitsNum, isNegative, scale);
+    }
+
+    public static ByteBuffer encode(final BigDecimal value) {
+        final int scale = Math.max(value.scale(), 0);
+        final boolean isNegative = value.signum() < 0;
+        // align the fraction to whole base-10000 digits
+        final int fracDigitsNum = scale / DEC_DIGITS + 1;
+        final int shift = fracDigitsNum * DEC_DIGITS - value.scale();
+        final BigInteger unscaledBig = value.unscaledValue();
+        if (unscaledBig.bitLength() < 63 && shift < POW10.length) {
+            final long unscaled = Math.abs(unscaledBig.longValue());
+            if (unscaled <= Long.MAX_VALUE / POW10[shift]) {
+                return encodeLong(unscaled * POW10[shift], fracDigitsNum, isNegative, scale);
+            }
+        }
+        final BigInteger unscaled = unscaledBig.abs().multiply(BigInteger.TEN.pow(shift));
+        return encodeBig(unscaled, fracDigitsNum, isNegative, scale);
+    }
+
+    public static ByteBuffer encode(final long value) {
+        if (value > Long.MAX_VALUE / NBASE || value < -Long.MAX_VALUE / NBASE) {
+            return encode(BigDecimal.valueOf(value));
+        }
+        return encodeLong(Math.abs(value) * NBASE, 1, value < 0, 0);
+    }
+
+    public static ByteBuffer encode(final double value) {
+        if (Double.isNaN(value)) {
+            return header(0, 0, NUMERIC_NAN, 0);
+        }
+        if (value == Double.POSITIVE_INFINITY) {
+            return header(0, 0, NUMERIC_PINF, 0);
+        }
+        if (value == Double.NEGATIVE_INFINITY) {
+            return header(0, 0, NUMERIC_NINF, 0);
+        }
+        return encode(BigDecimal.valueOf(value));
+    }
+
+    // the shortest decimal of a float, not of its widened double
+    public static ByteBuffer encode(final float value) {
+        if (Float.isFinite(value)) {
+            return encode(new BigDecimal(Float.toString(value)));
+        }
+        return encode((double) value);
+    }
+
+    // NaN and infinities have no BigDecimal, so they come as Double
+    public static Number decode(final ByteBuffer bb) {
+        int digitsNum = bb.getShort();
+        final int weight = bb.getShort();
+        final int sign = bb.getShort() & 0xFFFF;
+        final int scale = bb.getShort() & NUMERIC_DSCALE_MASK;
+
+        switch (sign) {
+            case NUMERIC_NAN: return Double.NaN;
+            case NUMERIC_PINF: return Double.POSITIVE_INFINITY;
+            case NUMERIC_NINF: return Double.NEGATIVE_INFINITY;
+        }
+
+        final boolean isNegative = sign == NUMERIC_NEG;
+        // the number of decimal digits after the point the digits carry
+        int shift = DEC_DIGITS * (digitsNum - weight - 1);
+
+        // zero digits on both ends do not change the value
+        final int end = bb.position() + 2 * digitsNum;
+        int lo = bb.position();
+        int hi = end;
+        while (lo < hi && bb.getShort(lo) == 0) {
+            lo += 2;
+        }
+        while (hi > lo && bb.getShort(hi - 2) == 0) {
+            hi -= 2;
+            shift -= DEC_DIGITS;
+        }
+        digitsNum = (hi - lo) / 2;
+        bb.position(lo);
 
         if (digitsNum == 0) {
-            return BigDecimal.ZERO;
+            bb.position(end);
+            return BigDecimal.valueOf(0, scale);
         }
 
-        final short weight = bb.getShort();
-        final short sigh = bb.getShort();
-        final short scale = bb.getShort();
-        final short[] shorts = new short[digitsNum];
-        for (short i = 0; i < digitsNum; i++) {
-            shorts[i] = bb.getShort();
+        if (digitsNum <= LONG_DIGITS) {
+            long unscaled = 0;
+            for (int i = 0; i < digitsNum; i++) {
+                unscaled = unscaled * NBASE + bb.getShort();
+            }
+            bb.position(end);
+            final int diff = scale - shift;
+            if (diff <= 0 && -diff < POW10.length) {
+                unscaled /= POW10[-diff];
+                return BigDecimal.valueOf(isNegative ? -unscaled : unscaled, scale);
+            }
+            if (diff > 0 && diff < POW10.length && unscaled <= Long.MAX_VALUE / POW10[diff]) {
+                unscaled *= POW10[diff];
+                return BigDecimal.valueOf(isNegative ? -unscaled : unscaled, scale);
+            }
+            final BigDecimal result = BigDecimal.valueOf(unscaled, shift).setScale(scale, RoundingMode.DOWN);
+            return isNegative ? result.negate() : result;
+        }
+
+        BigInteger unscaled = BigInteger.ZERO;
+        long chunk = 0;
+        int chunkLen = 0;
+        for (int i = 0; i < digitsNum; i++) {
+            chunk = chunk * NBASE + bb.getShort();
+            if (++chunkLen == LONG_DIGITS) {
+                unscaled = unscaled.multiply(BIG_CHUNK).add(BigInteger.valueOf(chunk));
+                chunk = 0;
+                chunkLen = 0;
+            }
         }
-        final StringBuilder sb = new StringBuilder();
-        if (sigh != 0) {
-            sb.append("-");
+        bb.position(end);
+        if (chunkLen > 0) {
+            unscaled = unscaled
+                    .multiply(BigInteger.valueOf(POW10[DEC_DIGITS * chunkLen]))
+                    .add(BigInteger.valueOf(chunk));
         }
-        sb.append("0.");
-        for (short i = 0; i < digitsNum; i++) {
-            sb.append(String.format("%04d", shorts[i]));
+        if (isNegative) {
+            unscaled = unscaled.negate();
         }
-        return new BigDecimal(sb.toString())
-                .movePointRight(4 * (weight + 1))
-                .setScale(scale, RoundingMode.DOWN);
+        return new BigDecimal(unscaled, shift).setScale(scale, RoundingMode.DOWN);
     }
 
     public static void main (final String[] args) {
         final ByteBuffer bb = encode(new BigDecimal("1"));
         bb.rewind();
-        // System.out.println(Arrays.toString(encodeBin(new BigDecimal("1")).array()));
         System.out.println(decode(bb));
     }
 
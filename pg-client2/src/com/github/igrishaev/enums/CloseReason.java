@@ -0,0 +1,23 @@
+package com.github.igrishaev.enums;
+
+// why the pool has closed a connection
+public enum CloseReason {
+
+    EXPIRED("expired"),
+    IDLE("idle"),
+    TX_ERROR("tx-error"),
+    FORCE_CLOSE("force-close"),
+    INVALID("invalid"),
+    CLOSED("closed"),
+    POOL_CLOSED("pool-closed");
+
+    private final String code;
+
+    CloseReason(final String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return this.code;
+    }
+}
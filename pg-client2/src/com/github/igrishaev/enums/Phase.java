@@ -1,5 +1,5 @@
 package com.github.igrishaev.enums;
 
 public enum Phase {
-    AUTH, QUERY, PREPARE, EXECUTE, CLOSE, COPY
+    AUTH, QUERY, PREPARE, EXECUTE, CLOSE, COPY, BATCH
 }
@@ -0,0 +1,5 @@
+package com.github.igrishaev.enums;
+
+public enum PipelineMode {
+    SYNC_EACH, SYNC_ONCE
+}
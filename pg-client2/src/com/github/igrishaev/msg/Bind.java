@@ -1,6 +1,5 @@
 package com.github.igrishaev.msg;
 
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 import com.github.igrishaev.enums.Format;
@@ -16,8 +15,9 @@ public record Bind (
         Format columnFormat
 ) implements IMessage {
 
-    public ByteBuffer encode(final Charset charset) {
-        final Payload payload = new Payload()
+    public void encode(final Payload payload, final Charset charset) {
+        payload
+                .begin('B')
                 .addCString(portal)
                 .addCString(statement)
                 .addShort((short)1)
@@ -36,7 +36,6 @@ public record Bind (
 
         payload.addShort((short)1);
         payload.addShort(columnFormat.toCode());
-
-        return payload.toByteBuffer('B');
+        payload.end();
     }
 }
@@ -1,6 +1,7 @@
 package com.github.igrishaev.msg;
 
-import java.nio.ByteBuffer;
+import com.github.igrishaev.Payload;
+
 import java.nio.charset.Charset;
 
 public record CancelRequest(
@@ -9,12 +10,12 @@ public record CancelRequest(
         int secretKey
 ) implements IMessage {
 
-    public ByteBuffer encode(final Charset charset) {
-        final ByteBuffer buf = ByteBuffer.allocate(32);
-        buf.putInt(16);
-        buf.putInt(code);
-        buf.putInt(pid);
-        buf.putInt(secretKey);
-        return buf;
+    public void encode(final Payload payload, final Charset charset) {
+        payload
+            .begin()
+            .addInteger(code)
+            .addInteger(pid)
+            .addInteger(secretKey)
+            .end();
     }
 }
@@ -6,6 +6,20 @@ import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 public record CommandComplete (String command) {
+
+        // the trailing number of a tag like "INSERT 0 5", or 0 if missing
+        public long getRowCount () {
+                final int len = command.length();
+                int i = len;
+                while (i > 0 && Character.isDigit(command.charAt(i - 1))) {
+                        i--;
+                }
+                if (i == len || (i > 0 && command.charAt(i - 1) != ' ')) {
+                        return 0;
+                }
+                return Long.parseLong(command, i, len, 10);
+        }
+
         public static CommandComplete fromByteBuffer(
                 final ByteBuffer buf,
                 final Charset charset
@@ -1,18 +1,17 @@
 package com.github.igrishaev.msg;
 
+import com.github.igrishaev.Payload;
+
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 public record CopyData (ByteBuffer buf) implements IMessage {
 
-    public ByteBuffer encode(final Charset charset) {
-        buf.rewind();
-        final int size = buf.limit();
-        final ByteBuffer result = ByteBuffer.allocate(1 + 4 + size);
-        result.put((byte)'d');
-        result.putInt(4 + size);
-        result.put(buf);
-        return result;
+    public void encode(final Payload payload, final Charset charset) {
+        payload
+                .begin('d')
+                .addBytes(buf.array(), buf.arrayOffset(), buf.limit())
+                .end();
     }
 
     public static CopyData fromByteBuffer(final ByteBuffer buf) {
@@ -1,18 +1,24 @@
 package com.github.igrishaev.msg;
 
-import java.nio.ByteBuffer;
+import com.github.igrishaev.Payload;
+import com.github.igrishaev.util.IOTool;
+
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 
-public record CopyDone () implements IMessage {
+public record CopyDone () implements IFrame {
     public final static CopyDone INSTANCE = new CopyDone();
-    private final static ByteBuffer buf = ByteBuffer.wrap(new byte[] {
+    private final static byte[] FRAME = new byte[] {
             (byte)'c',
             (byte) 0,
             (byte) 0,
             (byte) 0,
             (byte) 4
-    });
-    public ByteBuffer encode(Charset encoding) {
-        return buf;
+    };
+    public void encode(final Payload payload, final Charset charset) {
+        payload.addBytes(FRAME);
+    }
+    public void write(final OutputStream outputStream) {
+        IOTool.write(outputStream, FRAME);
     }
 }
@@ -2,13 +2,13 @@ package com.github.igrishaev.msg;
 
 import com.github.igrishaev.Payload;
 
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 public record CopyFail (String errorMessage) implements IMessage {
-    public ByteBuffer encode(final Charset charset) {
-        return new Payload()
+    public void encode(final Payload payload, final Charset charset) {
+        payload
+            .begin('f')
             .addCString(errorMessage, charset)
-            .toByteBuffer('f');
+            .end();
     }
 }
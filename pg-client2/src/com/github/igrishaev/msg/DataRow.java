@@ -1,26 +1,70 @@
 package com.github.igrishaev.msg;
 
-import com.github.igrishaev.util.BBTool;
-
 import java.nio.ByteBuffer;
 
-public record DataRow (short valueCount, ByteBuffer[] values) {
-    public static DataRow fromByteBuffer(final ByteBuffer buf) {
+// One instance per connection: a row keeps only the offsets and lengths
+// of its values in the receive buffer, so it is valid until the next read.
+public final class DataRow {
+
+    private short valueCount;
+    private int[] offsets = new int[0];
+    private int[] lengths = new int[0];
+    private ByteBuffer buf;
 
+    public DataRow read (final ByteBuffer buf) {
         final short size = buf.getShort();
-        final ByteBuffer[] values = new ByteBuffer[size];
+        if (offsets.length < size) {
+            offsets = new int[size];
+            lengths = new int[size];
+        }
         for (short i = 0; i < size; i++) {
             final int len = buf.getInt();
-            if (len == -1) {
-                values[i] = null;
-            }
-            else {
-                final ByteBuffer bufValue = buf.slice();
-                bufValue.limit(len);
-                BBTool.skip(buf, len);
-                values[i] = bufValue;
+            final int pos = buf.position();
+            offsets[i] = pos;
+            lengths[i] = len;
+            if (len != -1) {
+                buf.position(pos + len);
             }
         }
-        return new DataRow(size, values);
+        this.valueCount = size;
+        this.buf = buf;
+        return this;
+    }
+
+    public static DataRow fromByteBuffer(final ByteBuffer buf) {
+        return new DataRow().read(buf);
+    }
+
+    public short valueCount () {
+        return valueCount;
+    }
+
+    public boolean isNull (final int i) {
+        return lengths[i] == -1;
+    }
+
+    public int offset (final int i) {
+        return offsets[i];
+    }
+
+    public int length (final int i) {
+        return lengths[i];
+    }
+
+    // positions the shared buffer at the i-th value
+    public ByteBuffer value (final int i) {
+        final int offset = offsets[i];
+        buf.limit(offset + lengths[i]);
+        buf.position(offset);
+        return buf;
+    }
+
+    public ByteBuffer buf () {
+        return buf;
+    }
+
+    @Override
+    public String toString () {
+        return String.format("DataRow[valueCount=%s]", valueCount);
     }
 }
@@ -3,14 +3,14 @@ package com.github.igrishaev.msg;
 import com.github.igrishaev.Payload;
 import com.github.igrishaev.enums.SourceType;
 
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 public record Describe(SourceType sourceType, String source) implements IMessage {
-    public ByteBuffer encode(final Charset charset) {
-        return new Payload()
+    public void encode(final Payload payload, final Charset charset) {
+        payload
+                .begin('D')
                 .addByte((byte)sourceType.getCode())
                 .addCString(source, charset)
-                .toByteBuffer('D');
+                .end();
     }
 }
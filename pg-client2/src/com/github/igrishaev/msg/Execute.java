@@ -4,7 +4,6 @@ import com.github.igrishaev.Const;
 import com.github.igrishaev.PGError;
 import com.github.igrishaev.Payload;
 
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 public record Execute (String portal, long rowCount) implements IMessage {
@@ -15,10 +14,11 @@ public record Execute (String portal, long rowCount) implements IMessage {
             throw new PGError("Too many rows: %s", rowCount);
         }
     }
-    public ByteBuffer encode(final Charset charset) {
-        return new Payload()
+    public void encode(final Payload payload, final Charset charset) {
+        payload
+            .begin('E')
             .addCString(portal, charset)
             .addUnsignedInteger(rowCount)
-            .toByteBuffer('E');
+            .end();
     }
 }
@@ -0,0 +1,9 @@
+package com.github.igrishaev.msg;
+
+import java.io.OutputStream;
+
+// a message with no fields, written as a constant frame
+public interface IFrame extends IMessage {
+
+    void write(OutputStream outputStream);
+}
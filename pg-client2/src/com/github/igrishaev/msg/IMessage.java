@@ -1,8 +1,17 @@
 package com.github.igrishaev.msg;
 
+import com.github.igrishaev.Payload;
+
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 public interface IMessage {
-    ByteBuffer encode(Charset encoding);
+
+    void encode(Payload payload, Charset charset);
+
+    default ByteBuffer encode(final Charset charset) {
+        final Payload payload = new Payload();
+        encode(payload, charset);
+        return payload.toByteBuffer();
+    }
 }
@@ -4,7 +4,6 @@ import com.github.igrishaev.enums.OID;
 import com.github.igrishaev.PGError;
 import com.github.igrishaev.Payload;
 
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 public record Parse (String statement,
@@ -12,7 +11,7 @@ public record Parse (String statement,
                      OID[] OIDs)
         implements IMessage {
 
-    public ByteBuffer encode(final Charset charset) {
+    public void encode(final Payload payload, final Charset charset) {
 
         final int OIDCount = OIDs.length;
 
@@ -23,9 +22,8 @@ public record Parse (String statement,
             );
         }
 
-        final Payload payload = new Payload();
-
         payload
+            .begin('P')
             .addCString(statement, charset)
             .addCString(query, charset)
             .addUnsignedShort(OIDCount);
@@ -34,7 +32,7 @@ public record Parse (String statement,
             payload.addInteger(oid.toInt());
         }
 
-        return payload.toByteBuffer('P');
+        payload.end();
     }
 
 }
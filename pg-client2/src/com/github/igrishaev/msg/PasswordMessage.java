@@ -2,13 +2,13 @@ package com.github.igrishaev.msg;
 
 import com.github.igrishaev.Payload;
 
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 public record PasswordMessage (String password) implements IMessage {
-    public ByteBuffer encode(final Charset charset) {
-        return new Payload()
+    public void encode(final Payload payload, final Charset charset) {
+        payload
+            .begin('p')
             .addCString(password, charset)
-            .toByteBuffer('p');
+            .end();
     }
 }
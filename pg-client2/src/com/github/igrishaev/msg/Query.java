@@ -3,13 +3,13 @@ package com.github.igrishaev.msg;
 import com.github.igrishaev.Payload;
 import com.github.igrishaev.msg.IMessage;
 
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 public record Query (String query) implements IMessage {
-    public ByteBuffer encode(final Charset charset) {
-        return new Payload()
+    public void encode(final Payload payload, final Charset charset) {
+        payload
+            .begin('Q')
             .addCString(query, charset)
-            .toByteBuffer('Q');
+            .end();
     }
 }
@@ -3,7 +3,6 @@ package com.github.igrishaev.msg;
 import com.github.igrishaev.Payload;
 import com.github.igrishaev.enums.SASL;
 
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 public record SASLInitialResponse(
@@ -11,8 +10,8 @@ public record SASLInitialResponse(
         String clientFirstMessage
 ) implements IMessage {
 
-    public ByteBuffer encode(final Charset charset) {
-        final Payload payload = new Payload().addCString(saslType().toCode());
+    public void encode(final Payload payload, final Charset charset) {
+        payload.begin('p').addCString(saslType().toCode());
         if (clientFirstMessage.isEmpty()) {
             payload.addInteger(-1);
         }
@@ -21,7 +20,7 @@ public record SASLInitialResponse(
             payload.addInteger(bytes.length);
             payload.addBytes(bytes);
         }
-        return payload.toByteBuffer('p');
+        payload.end();
     }
 
 }
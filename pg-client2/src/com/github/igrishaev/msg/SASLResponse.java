@@ -2,14 +2,14 @@ package com.github.igrishaev.msg;
 
 import com.github.igrishaev.Payload;
 
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 public record SASLResponse(String clientFinalMessage) implements IMessage {
 
-    public ByteBuffer encode(final Charset charset) {
-        return new Payload()
+    public void encode(final Payload payload, final Charset charset) {
+        payload
+                .begin('p')
                 .addBytes(clientFinalMessage.getBytes(charset))
-                .toByteBuffer('p');
+                .end();
     }
 }
@@ -1,10 +1,11 @@
 package com.github.igrishaev.msg;
 
-import java.nio.ByteBuffer;
+import com.github.igrishaev.Payload;
+
 import java.nio.charset.Charset;
 
 public record SSLRequest (int sslCode) implements IMessage {
-    public ByteBuffer encode(final Charset charset) {
-        return ByteBuffer.allocate(8).putInt(8).putInt(sslCode);
+    public void encode(final Payload payload, final Charset charset) {
+        payload.begin().addInteger(sslCode).end();
     }
 }
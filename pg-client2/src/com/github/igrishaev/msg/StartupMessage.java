@@ -3,7 +3,6 @@ package com.github.igrishaev.msg;
 import com.github.igrishaev.Payload;
 import com.github.igrishaev.msg.IMessage;
 
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Map;
 
@@ -12,9 +11,9 @@ public record StartupMessage (Integer protocolVersion,
                               String database,
                               Map<String, String> options
 ) implements IMessage {
-    public ByteBuffer encode(final Charset charset) {
-        final Payload payload = new Payload();
+    public void encode(final Payload payload, final Charset charset) {
         payload
+            .begin()
             .addInteger(protocolVersion)
             .addCString("user")
             .addCString(user, charset)
@@ -24,7 +23,6 @@ public record StartupMessage (Integer protocolVersion,
             payload.addCString(entry.getKey(), charset);
             payload.addCString(entry.getValue(), charset);
         }
-        payload.addByte((byte)0);
-        return payload.toByteBuffer();
+        payload.addByte((byte)0).end();
     }
 }
@@ -0,0 +1,110 @@
+package com.github.igrishaev.pool;
+
+import clojure.lang.IPersistentMap;
+import clojure.lang.Keyword;
+import clojure.lang.PersistentHashMap;
+import com.github.igrishaev.util.IClojure;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts values in log-linear buckets: eight buckets per power of two,
+// so a percentile is off by 12.5% at most. Recording is lock-free and
+// allocates nothing.
+public class Histogram implements IClojure {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    static int bucketIndex (final long value) {
+        if (value < SUB_COUNT) {
+            return (int) Math.max(value, 0);
+        }
+        final int exp = 63 - Long.numberOfLeadingZeros(value);
+        final int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exp - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    static long bucketUpperBound (final int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        final int exp = index / SUB_COUNT + SUB_BITS - 1;
+        final int sub = index % SUB_COUNT;
+        final long lower = (long) (SUB_COUNT + sub) << (exp - SUB_BITS);
+        return lower + (1L << (exp - SUB_BITS)) - 1;
+    }
+
+    public void record (final long value) {
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount () {
+        return count.sum();
+    }
+
+    public long getSum () {
+        return sum.sum();
+    }
+
+    public long getMax () {
+        return max.get();
+    }
+
+    public double getMean () {
+        final long n = getCount();
+        return n == 0 ? 0.0 : (double) getSum() / n;
+    }
+
+    // the upper bound of the bucket holding the given quantile, 0..1
+    public long getPercentile (final double quantile) {
+        final long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public IPersistentMap toClojure () {
+        return PersistentHashMap.create(
+                Keyword.intern("count"), getCount(),
+                Keyword.intern("sum"), getSum(),
+                Keyword.intern("max"), getMax(),
+                Keyword.intern("mean"), getMean(),
+                Keyword.intern("p50"), getPercentile(0.5),
+                Keyword.intern("p90"), getPercentile(0.9),
+                Keyword.intern("p99"), getPercentile(0.99),
+                Keyword.intern("p999"), getPercentile(0.999)
+        );
+    }
+
+    @Override
+    public String toString () {
+        return String.format(
+                "<Histogram, count: %s, mean: %.1f, p50: %s, p99: %s, max: %s>",
+                getCount(),
+                getMean(),
+                getPercentile(0.5),
+                getPercentile(0.99),
+                getMax()
+        );
+    }
+}
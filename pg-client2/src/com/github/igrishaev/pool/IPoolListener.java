@@ -0,0 +1,31 @@
+package com.github.igrishaev.pool;
+
+import com.github.igrishaev.enums.CloseReason;
+
+import java.util.UUID;
+
+// Pool events for an external metrics system. The methods are called on
+// the borrowing thread or the pool's background thread, so they should
+// return quickly and must not throw. Times are in nanoseconds.
+public interface IPoolListener {
+
+    default void onBorrow (final UUID connId, final long waitNanos) {}
+
+    default void onReturn (final UUID connId, final long holdNanos) {}
+
+    default void onCreate (final UUID connId, final long connectNanos) {}
+
+    default void onClose (final UUID connId, final CloseReason reason) {}
+
+    default void onQueue (final int queueDepth) {}
+
+    default void onExhausted (final int usedCount, final int maxSize) {}
+
+    default void onTimeout (final long waitNanos) {}
+
+    default void onValidation (final UUID connId, final long nanos, final boolean isOk) {}
+
+    default void onPing (final UUID connId, final long nanos, final boolean isOk) {}
+
+    IPoolListener NONE = new IPoolListener() {};
+}
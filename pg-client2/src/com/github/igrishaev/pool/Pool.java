@@ -1,24 +1,118 @@
 package com.github.igrishaev.pool;
 
 import com.github.igrishaev.ConnConfig;
+import com.github.igrishaev.Const;
 import com.github.igrishaev.Connection;
 import com.github.igrishaev.PGError;
+import com.github.igrishaev.enums.CloseReason;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import java.io.Closeable;
-import java.util.Deque;
-import java.util.UUID;
-import java.util.ArrayDeque;
+import java.lang.management.ManagementFactory;
 import java.util.Map;
-import java.util.HashMap;
-
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// There is no pool-wide lock. Each entry carries its own state, which a
+// borrower flips from FREE to USED with a CAS. A thread tries the entry it
+// returned last before scanning the shared list. Connecting, rollbacks
+// and closing run on the calling thread with nothing held. With an
+// acquire timeout, borrowers queue up and returned entries are handed
+// to the oldest waiter without ever becoming FREE.
+//
+// A background task keeps minSize connections open, closes the idle ones
+// above minSize and replaces connections shortly before they expire.
+// Waiting borrowers get their new connections from that executor too.
+//
+// A connection is checked before it's handed out: one with unexpected
+// bytes pending or idle for longer than validateAfterIdle has to answer
+// an empty query within validationTimeout. The background task pings
+// free connections every pingInterval, so broken ones are dropped before
+// a borrower gets them.
+//
+// Every event is counted in PoolMetrics and passed to an optional
+// IPoolListener; with registerMBean, the numbers are visible in JMX.
 public class Pool implements Closeable {
 
+    private static final int FREE = 0;
+    private static final int USED = 1;
+    private static final int REMOVED = 2;
+
+    private static final class Entry {
+
+        private final Connection conn;
+        private final AtomicInteger state;
+        private final long expiresAt;
+        private volatile long releasedAt;
+        // last time the connection was known to work
+        private volatile long checkedAt;
+        // System.nanoTime of the last borrow
+        private volatile long borrowedAt;
+
+        private Entry (final Connection conn, final int state, final long expiresAt) {
+            this.conn = conn;
+            this.state = new AtomicInteger(state);
+            this.expiresAt = expiresAt;
+            this.releasedAt = System.currentTimeMillis();
+            this.checkedAt = this.releasedAt;
+            this.borrowedAt = System.nanoTime();
+        }
+
+        private boolean tryReserve () {
+            return state.compareAndSet(FREE, USED);
+        }
+    }
+
+    private static final Object CANCELLED = new Object();
+
+    private static final class Waiter {
+
+        private final Thread thread = Thread.currentThread();
+        // null while waiting, then either an entry or CANCELLED
+        private final AtomicReference<Object> slot = new AtomicReference<>();
+
+        private boolean offer (final Entry entry) {
+            if (slot.compareAndSet(null, entry)) {
+                LockSupport.unpark(thread);
+                return true;
+            }
+            return false;
+        }
+
+        private boolean cancel () {
+            return slot.compareAndSet(null, CANCELLED);
+        }
+
+        private Entry getEntry () {
+            final Object value = slot.get();
+            return value instanceof Entry ? (Entry) value : null;
+        }
+    }
+
     private final ConnConfig connConfig;
     private final PoolConfig poolConfig;
-    private final Map<UUID, Connection> connsUsed;
-    private final Deque<Connection> connsFree;
-    private boolean isClosed = false;
-    private final static System.Logger.Level level = System.Logger.Level.INFO;
+    private final CopyOnWriteArrayList<Entry> entries;
+    private final Map<UUID, Entry> entryIndex;
+    private final ThreadLocal<Entry> lastEntry;
+    private final ConcurrentLinkedQueue<Waiter> waiters;
+    private final PoolMetrics metrics;
+    private final IPoolListener listener;
+    private final ObjectName mbeanName;
+    // entries plus the connections being opened right now
+    private final AtomicInteger size;
+    private volatile boolean isClosed = false;
+    private final ScheduledThreadPoolExecutor executor;
+    private final static System.Logger.Level level = System.Logger.Level.DEBUG;
     private final static System.Logger logger = System.getLogger(Pool.class.getCanonicalName());
 
     public Pool (final ConnConfig connConfig) {
@@ -28,164 +122,607 @@ public class Pool implements Closeable {
     public Pool (final ConnConfig connConfig, final PoolConfig poolConfig) {
         this.connConfig = connConfig;
         this.poolConfig = poolConfig;
-        this.connsUsed = new HashMap<>(poolConfig.maxSize());
-        this.connsFree = new ArrayDeque<>(poolConfig.maxSize());
+        this.entries = new CopyOnWriteArrayList<>();
+        this.entryIndex = new ConcurrentHashMap<>(poolConfig.maxSize());
+        this.lastEntry = new ThreadLocal<>();
+        this.waiters = new ConcurrentLinkedQueue<>();
+        this.metrics = new PoolMetrics();
+        this.listener = poolConfig.listener();
+        this.size = new AtomicInteger(0);
         initiate();
+        this.executor = new ScheduledThreadPoolExecutor(
+                Const.POOL_EXECUTOR_THREADS,
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "pg-pool-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        this.executor.setRemoveOnCancelPolicy(true);
+        final long interval = poolConfig.maintenanceInterval();
+        if (interval > 0) {
+            this.executor.scheduleWithFixedDelay(
+                    this::maintainSafe, interval, interval, TimeUnit.MILLISECONDS
+            );
+        }
+        this.mbeanName = poolConfig.registerMBean() ? registerMBean() : null;
+    }
+
+    private ObjectName registerMBean () {
+        try {
+            final ObjectName name = new ObjectName(
+                    "com.github.igrishaev.pool:type=Pool,name=" + ObjectName.quote(poolConfig.name())
+            );
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    new PoolMBean(this, poolConfig, metrics), name
+            );
+            return name;
+        }
+        catch (JMException e) {
+            close();
+            throw new PGError(e, "cannot register the pool MBean, name: %s", poolConfig.name());
+        }
     }
 
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
     private void initiate () {
         for (int i = 0; i < poolConfig.minSize(); i++) {
-            final Connection conn = new Connection(connConfig);
-            connsFree.add(conn);
+            size.incrementAndGet();
+            addEntry(openConnection(), FREE);
         }
     }
 
-    private boolean isExpired (final Connection conn) {
-        return System.currentTimeMillis() - conn.getCreatedAt() > poolConfig.maxLifetime();
+    // Connections die a bit earlier than maxLifetime and at different
+    // moments, so those opened together are not all replaced at once.
+    private long expiresAt (final Connection conn) {
+        final int lifetime = poolConfig.maxLifetime();
+        final int jitter = lifetime / Const.POOL_LIFETIME_JITTER_DIVISOR;
+        final int random = jitter > 0 ? ThreadLocalRandom.current().nextInt(jitter) : 0;
+        return conn.getCreatedAt() + lifetime - random;
     }
 
-    private void addUsed (final Connection conn) {
-        connsUsed.put(conn.getId(), conn);
+    private Entry addEntry (final Connection conn, final int state) {
+        final Entry entry = new Entry(conn, state, expiresAt(conn));
+        entryIndex.put(conn.getId(), entry);
+        entries.add(entry);
+        return entry;
     }
 
-    private void removeUsed (final Connection conn) {
-        connsUsed.remove(conn.getId());
+    private void removeEntry (final Entry entry) {
+        entry.state.set(REMOVED);
+        if (entries.remove(entry)) {
+            entryIndex.remove(entry.conn.getId());
+            size.decrementAndGet();
+            signalWaiter();
+        }
+    }
+
+    // there is room for a new connection: let the oldest waiter try
+    private void signalWaiter () {
+        final Waiter waiter = waiters.peek();
+        if (waiter != null) {
+            LockSupport.unpark(waiter.thread);
+        }
+    }
+
+    private static boolean isExpired (final Entry entry) {
+        return System.currentTimeMillis() > entry.expiresAt;
+    }
+
+    private boolean tryGrow () {
+        while (true) {
+            final int current = size.get();
+            if (current >= poolConfig.maxSize()) {
+                return false;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
     }
 
     @SuppressWarnings("unused")
     private boolean isUsed (final Connection conn) {
-        return connsUsed.containsKey(conn.getId());
+        final Entry entry = entryIndex.get(conn.getId());
+        return entry != null && entry.state.get() == USED;
+    }
+
+    // a reserved entry is handed out unless it has expired or is broken
+    private Connection claim (final Entry entry) {
+        if (isExpired(entry)) {
+            removeEntry(entry);
+            utilizeConnection(entry.conn, CloseReason.EXPIRED);
+            return null;
+        }
+        if (!isValid(entry)) {
+            removeEntry(entry);
+            utilizeConnection(entry.conn, CloseReason.INVALID);
+            return null;
+        }
+        entry.borrowedAt = System.nanoTime();
+        return entry.conn;
+    }
+
+    private boolean isValid (final Entry entry) {
+        final Connection conn = entry.conn;
+        try {
+            if (conn.isClosed()) {
+                return false;
+            }
+            if (poolConfig.checkPendingBytes() && conn.hasPendingBytes()) {
+                metrics.onPendingBytes();
+                return validate(entry);
+            }
+        }
+        catch (Throwable e) {
+            return false;
+        }
+        final int afterIdle = poolConfig.validateAfterIdle();
+        if (afterIdle > 0 && System.currentTimeMillis() - entry.checkedAt > afterIdle) {
+            return validate(entry);
+        }
+        return true;
+    }
+
+    private boolean validate (final Entry entry) {
+        final long started = System.nanoTime();
+        final boolean isOk = entry.conn.ping(poolConfig.validationTimeout());
+        final long nanos = System.nanoTime() - started;
+        metrics.onValidation(nanos, isOk);
+        listener.onValidation(entry.conn.getId(), nanos, isOk);
+        if (isOk) {
+            entry.checkedAt = System.currentTimeMillis();
+        }
+        return isOk;
+    }
+
+    // the background counterpart of isValid
+    private boolean isHealthy (final Entry entry, final long now) {
+        final Connection conn = entry.conn;
+        final int interval = poolConfig.pingInterval();
+        try {
+            if (conn.isClosed()) {
+                return false;
+            }
+            if (poolConfig.checkPendingBytes() && conn.hasPendingBytes()) {
+                metrics.onPendingBytes();
+            }
+            else if (interval <= 0 || now - entry.checkedAt <= interval) {
+                return true;
+            }
+        }
+        catch (Throwable e) {
+            return false;
+        }
+        final long started = System.nanoTime();
+        final boolean isOk = conn.ping(poolConfig.pingTimeout());
+        final long nanos = System.nanoTime() - started;
+        metrics.onPing(nanos, isOk);
+        listener.onPing(conn.getId(), nanos, isOk);
+        if (isOk) {
+            entry.checkedAt = System.currentTimeMillis();
+        }
+        return isOk;
     }
 
     @SuppressWarnings("unused")
-    public synchronized Connection borrowConnection () {
+    public PoolMetrics getMetrics () {
+        return metrics;
+    }
+
+    @SuppressWarnings("unused")
+    public Connection borrowConnection () {
 
         if (isClosed()) {
             throw new PGError("Cannot get a connection: the pool has been closed");
         }
 
-        while (true) {
-            final Connection conn = connsFree.poll();
-            if (conn == null) {
-                if (connsUsed.size() < poolConfig.maxSize()) {
-                    return spawnConnection();
+        final long started = System.nanoTime();
+        final int timeout = poolConfig.acquireTimeout();
+        Connection conn = tryAcquire();
+
+        if (conn == null) {
+            if (timeout <= 0) {
+                // nowhere to wait for a background connection
+                if (tryGrow()) {
+                    conn = spawnConnection();
                 }
                 else {
-                    final String message = String.format(
-                            "The pool is exhausted: %s out of %s connections are in use",
-                            connsUsed.size(),
-                            poolConfig.maxSize()
-                    );
-                    logger.log(level, message);
-                    throw new PGError(message);
+                    metrics.onExhausted();
+                    throw exhausted();
                 }
             }
-            if (isExpired(conn)) {
-                utilizeConnection(conn);
-            }
             else {
-                addUsed(conn);
+                conn = awaitConnection(timeout);
+            }
+        }
+
+        final long nanos = System.nanoTime() - started;
+        metrics.onBorrow(nanos);
+        listener.onBorrow(conn.getId(), nanos);
+        return conn;
+    }
+
+    private PGError exhausted () {
+        final int used = usedCount();
+        listener.onExhausted(used, poolConfig.maxSize());
+        final String message = String.format(
+                "The pool is exhausted: %s out of %s connections are in use",
+                used,
+                poolConfig.maxSize()
+        );
+        logger.log(level, message);
+        return new PGError(message);
+    }
+
+    private Connection tryAcquire () {
+
+        final Entry last = lastEntry.get();
+        if (last != null && last.tryReserve()) {
+            final Connection conn = claim(last);
+            if (conn != null) {
                 return conn;
             }
         }
+
+        for (final Entry entry: entries) {
+            if (entry.tryReserve()) {
+                final Connection conn = claim(entry);
+                if (conn != null) {
+                    return conn;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    // the new connection is handed to a waiter or becomes free
+    private void spawnAsync () {
+        try {
+            executor.execute(() -> {
+                final Connection conn;
+                try {
+                    conn = openConnection();
+                }
+                catch (Throwable e) {
+                    logger.log(System.Logger.Level.WARNING, "could not open a connection", e);
+                    signalWaiter();
+                    return;
+                }
+                offerNew(conn);
+            });
+        }
+        catch (Throwable e) {
+            size.decrementAndGet();
+            throw e;
+        }
+    }
+
+    // Queue up and park. A waiter is woken either with an entry handed
+    // over by returnConnection or to retry when a slot has been freed.
+    private Connection awaitConnection (final int timeout) {
+        final long started = System.nanoTime();
+        final long deadline = started + TimeUnit.MILLISECONDS.toNanos(timeout);
+        try {
+            while (true) {
+                final Waiter waiter = new Waiter();
+                waiters.add(waiter);
+                listener.onQueue(metrics.onEnqueue());
+
+                // a connection might have been returned before we queued up
+                Connection conn = tryAcquire();
+                if (conn == null && tryGrow()) {
+                    spawnAsync();
+                }
+
+                while (conn == null && waiter.getEntry() == null) {
+                    final long left = deadline - System.nanoTime();
+                    if (left <= 0 || isClosed()) {
+                        if (waiter.cancel()) {
+                            dequeue(waiter);
+                            if (isClosed()) {
+                                throw new PGError("Cannot get a connection: the pool has been closed");
+                            }
+                            metrics.onTimeout();
+                            listener.onTimeout(System.nanoTime() - started);
+                            throw exhausted();
+                        }
+                        break;
+                    }
+                    LockSupport.parkNanos(this, left);
+                    if (waiter.getEntry() == null) {
+                        conn = tryAcquire();
+                        if (conn == null && tryGrow()) {
+                            spawnAsync();
+                        }
+                    }
+                }
+
+                if (conn != null) {
+                    if (waiter.cancel()) {
+                        dequeue(waiter);
+                    }
+                    else {
+                        release(waiter.getEntry());
+                    }
+                    return conn;
+                }
+
+                conn = claim(waiter.getEntry());
+                if (conn != null) {
+                    return conn;
+                }
+            }
+        }
+        finally {
+            metrics.onWait(System.nanoTime() - started);
+        }
+    }
+
+    // a polled waiter is already gone from the queue
+    private void dequeue (final Waiter waiter) {
+        if (waiters.remove(waiter)) {
+            listener.onQueue(metrics.onDequeue());
+        }
+    }
+
+    // hand a reserved entry to the oldest waiter or put it back
+    private void release (final Entry entry) {
+        while (true) {
+            Waiter waiter;
+            while ((waiter = waiters.poll()) != null) {
+                listener.onQueue(metrics.onDequeue());
+                if (waiter.offer(entry)) {
+                    return;
+                }
+            }
+            entry.releasedAt = System.currentTimeMillis();
+            entry.checkedAt = entry.releasedAt;
+            entry.state.set(FREE);
+            // someone could have queued up after the poll above
+            if (waiters.isEmpty() || !entry.tryReserve()) {
+                return;
+            }
+        }
     }
 
     @SuppressWarnings("unused")
-    public synchronized void returnConnection (final Connection conn) {
+    public void returnConnection (final Connection conn) {
         returnConnection(conn, false);
     }
 
-    private void utilizeConnection(final Connection conn) {
-        conn.close();
+    private void utilizeConnection(final Connection conn, final CloseReason reason) {
+        try {
+            conn.close();
+        }
+        catch (Throwable e) {
+            logger.log(level, "cannot close the connection {0}: {1}", conn.getId(), e.getMessage());
+        }
+        metrics.onClose(reason);
+        listener.onClose(conn.getId(), reason);
         logger.log(
                 level,
-                "the connection {0} has been closed, free: {1}, used: {2}, max: {3}",
+                "the connection {0} has been closed ({1}), free: {2}, used: {3}, max: {4}",
                 conn.getId(),
-                connsFree.size(),
-                connsUsed.size(),
+                reason.getCode(),
+                freeCount(),
+                usedCount(),
                 poolConfig.maxSize()
         );
     }
 
-    private Connection spawnConnection() {
-        final Connection conn = new Connection(connConfig);
-        addUsed(conn);
+    // the caller has already taken a slot with tryGrow
+    private Connection openConnection () {
+        final long started = System.nanoTime();
+        final Connection conn;
+        try {
+            conn = new Connection(connConfig);
+        }
+        catch (Throwable e) {
+            size.decrementAndGet();
+            throw e;
+        }
+        final long nanos = System.nanoTime() - started;
+        metrics.onCreate(nanos);
+        listener.onCreate(conn.getId(), nanos);
         logger.log(
                 level,
                 "connection {0} has been created, free: {1}, used: {2}, max: {3}",
                 conn.getId(),
-                connsFree.size(),
-                connsUsed.size(),
+                freeCount(),
+                usedCount(),
                 poolConfig.maxSize()
         );
         return conn;
     }
 
-    public synchronized void returnConnection (final Connection conn, final boolean forceClose) {
+    private Connection spawnConnection() {
+        final Connection conn = openConnection();
+        addEntry(conn, USED);
+        return conn;
+    }
+
+    private void maintainSafe () {
+        try {
+            maintain();
+        }
+        catch (Throwable e) {
+            logger.log(System.Logger.Level.WARNING, "pool maintenance failed", e);
+        }
+    }
+
+    // Runs in the background: drops idle connections above minSize, those
+    // about to expire or failing a ping, then opens new ones up to minSize.
+    @SuppressWarnings("unused")
+    public void maintain () {
+        if (isClosed()) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        final long soon = now + poolConfig.maintenanceInterval();
+        final int idleTimeout = poolConfig.idleTimeout();
+        for (final Entry entry: entries) {
+            if (!entry.tryReserve()) {
+                continue;
+            }
+            if (entry.expiresAt <= soon) {
+                removeEntry(entry);
+                utilizeConnection(entry.conn, CloseReason.EXPIRED);
+            }
+            else if (idleTimeout > 0
+                    && now - entry.releasedAt > idleTimeout
+                    && size.get() > poolConfig.minSize()) {
+                removeEntry(entry);
+                utilizeConnection(entry.conn, CloseReason.IDLE);
+            }
+            else if (!isHealthy(entry, now)) {
+                removeEntry(entry);
+                utilizeConnection(entry.conn, CloseReason.INVALID);
+            }
+            else {
+                entry.state.set(FREE);
+                if (!waiters.isEmpty() && entry.tryReserve()) {
+                    release(entry);
+                }
+            }
+        }
+        while (!isClosed() && size.get() < poolConfig.minSize() && tryGrow()) {
+            offerNew(openConnection());
+        }
+    }
+
+    // the pool might have been closed while the connection was opening
+    private void offerNew (final Connection conn) {
+        final Entry entry = addEntry(conn, USED);
+        if (isClosed()) {
+            removeEntry(entry);
+            utilizeConnection(conn, CloseReason.POOL_CLOSED);
+        }
+        else {
+            release(entry);
+        }
+    }
+
+    public void returnConnection (final Connection conn, final boolean forceClose) {
 
-        if (!isUsed(conn)) {
+        final Entry entry = entryIndex.get(conn.getId());
+
+        if (entry == null || entry.state.get() != USED) {
             throw new PGError("connection %s doesn't belong to the pool", conn.getId());
         }
 
-        removeUsed(conn);
+        final long held = System.nanoTime() - entry.borrowedAt;
+        metrics.onReturn(held);
+        listener.onReturn(conn.getId(), held);
 
         if (isClosed()) {
-            utilizeConnection(conn);
+            removeEntry(entry);
+            utilizeConnection(conn, CloseReason.POOL_CLOSED);
             return;
         }
 
         if (conn.isClosed()) {
+            removeEntry(entry);
+            utilizeConnection(conn, CloseReason.CLOSED);
             return;
         }
 
         if (forceClose) {
-            utilizeConnection(conn);
+            removeEntry(entry);
+            utilizeConnection(conn, CloseReason.FORCE_CLOSE);
             return;
         }
 
-        if (isExpired(conn)) {
-            utilizeConnection(conn);
+        if (isExpired(entry)) {
+            removeEntry(entry);
+            utilizeConnection(conn, CloseReason.EXPIRED);
             return;
         }
 
+        // closing the connection rolls the transaction back anyway
         if (conn.isTxError()) {
-            conn.rollback();
-            utilizeConnection(conn);
+            removeEntry(entry);
+            utilizeConnection(conn, CloseReason.TX_ERROR);
             return;
         }
 
+        // a broken connection must not keep its slot
         if (conn.isTransaction()) {
-            conn.rollback();
+            try {
+                conn.rollback();
+            }
+            catch (Throwable e) {
+                logger.log(level, "cannot roll back the connection {0}: {1}", conn.getId(), e.getMessage());
+                removeEntry(entry);
+                utilizeConnection(conn, CloseReason.TX_ERROR);
+                return;
+            }
         }
 
-        connsFree.offer(conn);
+        lastEntry.set(entry);
+        release(entry);
     }
 
-    public synchronized void close () {
-        for (final Connection conn: connsFree) {
-            conn.close();
+    // used connections are closed too; they leave the pool once returned
+    public void close () {
+        isClosed = true;
+        executor.shutdownNow();
+        for (final Entry entry: entries) {
+            if (entry.tryReserve()) {
+                removeEntry(entry);
+                utilizeConnection(entry.conn, CloseReason.POOL_CLOSED);
+            }
+            else {
+                entry.conn.close();
+            }
         }
-        for (final Connection conn: connsUsed.values()) {
-            conn.close();
+        // the waiters see the pool is closed and throw
+        for (final Waiter waiter: waiters) {
+            LockSupport.unpark(waiter.thread);
         }
-        isClosed = true;
+        unregisterMBean();
     }
 
-    public synchronized boolean isClosed() {
+    private void unregisterMBean () {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (mbeanName == null || !server.isRegistered(mbeanName)) {
+            return;
+        }
+        try {
+            server.unregisterMBean(mbeanName);
+        }
+        catch (JMException e) {
+            logger.log(System.Logger.Level.WARNING, "cannot unregister the pool MBean", e);
+        }
+    }
+
+    public boolean isClosed() {
         return isClosed;
     }
 
+    private int countState (final int state) {
+        int count = 0;
+        for (final Entry entry: entries) {
+            if (entry.state.get() == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     @SuppressWarnings("unused")
-    public synchronized int usedCount () {
-        return connsUsed.size();
+    public int usedCount () {
+        return countState(USED);
     }
 
     @SuppressWarnings("unused")
-    public synchronized int freeCount () {
-        return connsFree.size();
+    public int freeCount () {
+        return countState(FREE);
     }
 
-    public synchronized String toString () {
+    public String toString () {
         return String.format(
                 "<PG pool, min: %s, max: %s, lifetime: %s>",
                 poolConfig.minSize(),
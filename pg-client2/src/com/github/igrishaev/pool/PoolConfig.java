@@ -1,9 +1,22 @@
 package com.github.igrishaev.pool;
 
+import java.util.Objects;
+
 public record PoolConfig (
         int minSize,
         int maxSize,
-        int maxLifetime
+        int maxLifetime,
+        int acquireTimeout,
+        int idleTimeout,
+        int maintenanceInterval,
+        int validateAfterIdle,
+        int validationTimeout,
+        boolean checkPendingBytes,
+        int pingInterval,
+        int pingTimeout,
+        String name,
+        boolean registerMBean,
+        IPoolListener listener
 ) {
 
     public static Builder builder () {
@@ -19,6 +32,17 @@ public record PoolConfig (
         private int minSize = 2;
         private int maxSize = 8;
         private int maxLifetime = 1000 * 60 * 60;
+        private int acquireTimeout = 0;
+        private int idleTimeout = 1000 * 60 * 10;
+        private int maintenanceInterval = 1000 * 30;
+        private int validateAfterIdle = 0;
+        private int validationTimeout = 1000;
+        private boolean checkPendingBytes = false;
+        private int pingInterval = 0;
+        private int pingTimeout = 1000 * 5;
+        private String name = "pg-pool";
+        private boolean registerMBean = false;
+        private IPoolListener listener = IPoolListener.NONE;
 
         public Builder minSize(final int minSize) {
             this.minSize = minSize;
@@ -35,11 +59,86 @@ public record PoolConfig (
             return this;
         }
 
+        // in ms; zero means fail right away when the pool is exhausted
+        public Builder acquireTimeout(final int acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+            return this;
+        }
+
+        // free connections above minSize idle for longer are closed; zero disables
+        public Builder idleTimeout(final int idleTimeout) {
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        // how often the background task runs, in ms; zero disables it
+        public Builder maintenanceInterval(final int maintenanceInterval) {
+            this.maintenanceInterval = maintenanceInterval;
+            return this;
+        }
+
+        // a connection idle for longer is pinged before it's handed out; zero disables
+        public Builder validateAfterIdle(final int validateAfterIdle) {
+            this.validateAfterIdle = validateAfterIdle;
+            return this;
+        }
+
+        // how long a borrower waits for the ping, in ms
+        public Builder validationTimeout(final int validationTimeout) {
+            this.validationTimeout = validationTimeout;
+            return this;
+        }
+
+        // ping a connection that has unread bytes instead of handing it out
+        public Builder checkPendingBytes(final boolean checkPendingBytes) {
+            this.checkPendingBytes = checkPendingBytes;
+            return this;
+        }
+
+        // the background task pings free connections unchecked for longer; zero disables
+        public Builder pingInterval(final int pingInterval) {
+            this.pingInterval = pingInterval;
+            return this;
+        }
+
+        // how long the background task waits for the ping, in ms
+        public Builder pingTimeout(final int pingTimeout) {
+            this.pingTimeout = pingTimeout;
+            return this;
+        }
+
+        // the name of the MBean
+        public Builder name(final String name) {
+            this.name = Objects.requireNonNull(name);
+            return this;
+        }
+
+        public Builder registerMBean(final boolean registerMBean) {
+            this.registerMBean = registerMBean;
+            return this;
+        }
+
+        public Builder listener(final IPoolListener listener) {
+            this.listener = Objects.requireNonNull(listener);
+            return this;
+        }
+
         public PoolConfig build () {
             return new PoolConfig(
                     minSize,
                     maxSize,
-                    maxLifetime
+                    maxLifetime,
+                    acquireTimeout,
+                    idleTimeout,
+                    maintenanceInterval,
+                    validateAfterIdle,
+                    validationTimeout,
+                    checkPendingBytes,
+                    pingInterval,
+                    pingTimeout,
+                    name,
+                    registerMBean,
+                    listener
             );
         }
     }
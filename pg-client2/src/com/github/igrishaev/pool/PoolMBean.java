@@ -0,0 +1,86 @@
+package com.github.igrishaev.pool;
+
+class PoolMBean implements PoolMXBean {
+
+    private final Pool pool;
+    private final PoolConfig poolConfig;
+    private final PoolMetrics metrics;
+
+    PoolMBean (final Pool pool, final PoolConfig poolConfig, final PoolMetrics metrics) {
+        this.pool = pool;
+        this.poolConfig = poolConfig;
+        this.metrics = metrics;
+    }
+
+    public int getMinSize () {
+        return poolConfig.minSize();
+    }
+
+    public int getMaxSize () {
+        return poolConfig.maxSize();
+    }
+
+    public int getUsedCount () {
+        return pool.usedCount();
+    }
+
+    public int getFreeCount () {
+        return pool.freeCount();
+    }
+
+    public int getQueueDepth () {
+        return metrics.getQueueDepth();
+    }
+
+    public long getBorrowCount () {
+        return metrics.getBorrowCount();
+    }
+
+    public long getBorrowLatencyP50 () {
+        return metrics.getBorrowLatency().getPercentile(0.5);
+    }
+
+    public long getBorrowLatencyP99 () {
+        return metrics.getBorrowLatency().getPercentile(0.99);
+    }
+
+    public long getBorrowLatencyMax () {
+        return metrics.getBorrowLatency().getMax();
+    }
+
+    public long getHoldTimeP50 () {
+        return metrics.getHoldTime().getPercentile(0.5);
+    }
+
+    public long getHoldTimeP99 () {
+        return metrics.getHoldTime().getPercentile(0.99);
+    }
+
+    public long getHoldTimeMax () {
+        return metrics.getHoldTime().getMax();
+    }
+
+    public long getCreatedCount () {
+        return metrics.getCreatedCount();
+    }
+
+    public long getClosedCount () {
+        return metrics.getClosedCount();
+    }
+
+    public long getExhaustedCount () {
+        return metrics.getExhaustedCount();
+    }
+
+    public long getTimeoutCount () {
+        return metrics.getTimeoutCount();
+    }
+
+    public long getValidationFailures () {
+        return metrics.getValidationFailures();
+    }
+
+    public long getPingFailures () {
+        return metrics.getPingFailures();
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.igrishaev.pool;
+
+// what a registered pool shows in JMX; times are in nanoseconds
+@SuppressWarnings("unused")
+public interface PoolMXBean {
+
+    int getMinSize();
+
+    int getMaxSize();
+
+    int getUsedCount();
+
+    int getFreeCount();
+
+    int getQueueDepth();
+
+    long getBorrowCount();
+
+    long getBorrowLatencyP50();
+
+    long getBorrowLatencyP99();
+
+    long getBorrowLatencyMax();
+
+    long getHoldTimeP50();
+
+    long getHoldTimeP99();
+
+    long getHoldTimeMax();
+
+    long getCreatedCount();
+
+    long getClosedCount();
+
+    long getExhaustedCount();
+
+    long getTimeoutCount();
+
+    long getValidationFailures();
+
+    long getPingFailures();
+}
@@ -0,0 +1,236 @@
+package com.github.igrishaev.pool;
+
+import clojure.lang.IPersistentMap;
+import clojure.lang.Keyword;
+import clojure.lang.PersistentHashMap;
+import com.github.igrishaev.enums.CloseReason;
+import com.github.igrishaev.util.IClojure;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PoolMetrics implements IClojure {
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitTimeNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder exhaustedCount = new LongAdder();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final LongAdder validationCount = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder validationNanos = new LongAdder();
+    private final LongAdder pingCount = new LongAdder();
+    private final LongAdder pingFailures = new LongAdder();
+    private final LongAdder pingNanos = new LongAdder();
+    private final LongAdder pendingBytesCount = new LongAdder();
+    private final Histogram borrowLatency = new Histogram();
+    private final Histogram holdTime = new Histogram();
+    private final Histogram connectTime = new Histogram();
+    private final LongAdder[] closedCounts = new LongAdder[CloseReason.values().length];
+
+    PoolMetrics () {
+        for (int i = 0; i < closedCounts.length; i++) {
+            closedCounts[i] = new LongAdder();
+        }
+    }
+
+    void onBorrow (final long nanos) {
+        borrowCount.increment();
+        borrowLatency.record(nanos);
+    }
+
+    void onReturn (final long nanos) {
+        holdTime.record(nanos);
+    }
+
+    void onCreate (final long nanos) {
+        connectTime.record(nanos);
+    }
+
+    void onClose (final CloseReason reason) {
+        closedCounts[reason.ordinal()].increment();
+    }
+
+    void onExhausted () {
+        exhaustedCount.increment();
+    }
+
+    void onTimeout () {
+        timeoutCount.increment();
+    }
+
+    int onEnqueue () {
+        final int depth = queueDepth.incrementAndGet();
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+        return depth;
+    }
+
+    int onDequeue () {
+        return queueDepth.decrementAndGet();
+    }
+
+    void onWait (final long nanos) {
+        waitCount.increment();
+        waitTimeNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    void onValidation (final long nanos, final boolean isOk) {
+        validationCount.increment();
+        validationNanos.add(nanos);
+        if (!isOk) {
+            validationFailures.increment();
+        }
+    }
+
+    void onPing (final long nanos, final boolean isOk) {
+        pingCount.increment();
+        pingNanos.add(nanos);
+        if (!isOk) {
+            pingFailures.increment();
+        }
+    }
+
+    void onPendingBytes () {
+        pendingBytesCount.increment();
+    }
+
+    public long getBorrowCount () {
+        return borrowCount.sum();
+    }
+
+    public long getWaitCount () {
+        return waitCount.sum();
+    }
+
+    public long getWaitTimeNanos () {
+        return waitTimeNanos.sum();
+    }
+
+    public long getMaxWaitNanos () {
+        return maxWaitNanos.get();
+    }
+
+    public long getTimeoutCount () {
+        return timeoutCount.sum();
+    }
+
+    public long getExhaustedCount () {
+        return exhaustedCount.sum();
+    }
+
+    public int getQueueDepth () {
+        return queueDepth.get();
+    }
+
+    public int getMaxQueueDepth () {
+        return maxQueueDepth.get();
+    }
+
+    public long getValidationCount () {
+        return validationCount.sum();
+    }
+
+    public long getValidationFailures () {
+        return validationFailures.sum();
+    }
+
+    public long getValidationNanos () {
+        return validationNanos.sum();
+    }
+
+    public long getPingCount () {
+        return pingCount.sum();
+    }
+
+    public long getPingFailures () {
+        return pingFailures.sum();
+    }
+
+    public long getPingNanos () {
+        return pingNanos.sum();
+    }
+
+    public long getPendingBytesCount () {
+        return pendingBytesCount.sum();
+    }
+
+    public Histogram getBorrowLatency () {
+        return borrowLatency;
+    }
+
+    public Histogram getHoldTime () {
+        return holdTime;
+    }
+
+    public Histogram getConnectTime () {
+        return connectTime;
+    }
+
+    public long getCreatedCount () {
+        return connectTime.getCount();
+    }
+
+    public long getClosedCount (final CloseReason reason) {
+        return closedCounts[reason.ordinal()].sum();
+    }
+
+    public long getClosedCount () {
+        long total = 0;
+        for (final LongAdder count: closedCounts) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    private IPersistentMap closedToClojure () {
+        IPersistentMap result = PersistentHashMap.EMPTY;
+        for (final CloseReason reason: CloseReason.values()) {
+            result = result.assoc(Keyword.intern(reason.getCode()), getClosedCount(reason));
+        }
+        return result;
+    }
+
+    public IPersistentMap toClojure () {
+        return PersistentHashMap.create(
+                Keyword.intern("borrows"), getBorrowCount(),
+                Keyword.intern("waits"), getWaitCount(),
+                Keyword.intern("wait-time-nanos"), getWaitTimeNanos(),
+                Keyword.intern("max-wait-nanos"), getMaxWaitNanos(),
+                Keyword.intern("timeouts"), getTimeoutCount(),
+                Keyword.intern("exhausted"), getExhaustedCount(),
+                Keyword.intern("queue-depth"), getQueueDepth(),
+                Keyword.intern("max-queue-depth"), getMaxQueueDepth(),
+                Keyword.intern("validations"), getValidationCount(),
+                Keyword.intern("validation-failures"), getValidationFailures(),
+                Keyword.intern("validation-nanos"), getValidationNanos(),
+                Keyword.intern("pings"), getPingCount(),
+                Keyword.intern("ping-failures"), getPingFailures(),
+                Keyword.intern("ping-nanos"), getPingNanos(),
+                Keyword.intern("pending-bytes"), getPendingBytesCount(),
+                Keyword.intern("borrow-latency"), borrowLatency.toClojure(),
+                Keyword.intern("hold-time"), holdTime.toClojure(),
+                Keyword.intern("connect-time"), connectTime.toClojure(),
+                Keyword.intern("created"), getCreatedCount(),
+                Keyword.intern("closed"), closedToClojure()
+        );
+    }
+
+    @Override
+    public String toString () {
+        return String.format(
+                "<Pool metrics, borrows: %s, created: %s, closed: %s, waits: %s, timeouts: %s, exhausted: %s, queue: %s>",
+                getBorrowCount(),
+                getCreatedCount(),
+                getClosedCount(),
+                getWaitCount(),
+                getTimeoutCount(),
+                getExhaustedCount(),
+                getQueueDepth()
+        );
+    }
+}
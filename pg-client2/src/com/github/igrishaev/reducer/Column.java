@@ -0,0 +1,216 @@
+package com.github.igrishaev.reducer;
+
+import clojure.lang.Indexed;
+import com.github.igrishaev.PGError;
+import com.github.igrishaev.RowView;
+import com.github.igrishaev.enums.OID;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// One column of a Columnar result. Integers and floats live in a
+// primitive array with a bitmap of nulls, anything else is boxed into
+// an Object array. The arrays grow twice when full and get trimmed to
+// the row count once the result is complete.
+public final class Column implements Indexed, Iterable<Object> {
+
+    public enum Kind {INT, LONG, DOUBLE, OBJECT}
+
+    private static final int INIT_CAPACITY = 16;
+
+    private final Object key;
+    private final OID oid;
+    private final Kind kind;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private Object[] objects;
+    private BitSet nulls;
+    private int size = 0;
+
+    Column(final Object key, final OID oid) {
+        this.key = key;
+        this.oid = oid;
+        this.kind = kindOf(oid);
+        switch (kind) {
+            case INT -> ints = new int[INIT_CAPACITY];
+            case LONG -> longs = new long[INIT_CAPACITY];
+            case DOUBLE -> doubles = new double[INIT_CAPACITY];
+            case OBJECT -> objects = new Object[INIT_CAPACITY];
+        }
+    }
+
+    public static Kind kindOf (final OID oid) {
+        return switch (oid) {
+            case INT2, INT4 -> Kind.INT;
+            case INT8, OID -> Kind.LONG;
+            case FLOAT4, FLOAT8 -> Kind.DOUBLE;
+            default -> Kind.OBJECT;
+        };
+    }
+
+    void add (final RowView row, final int i) {
+        if (size == capacity()) {
+            grow();
+        }
+        if (row.isNull(i)) {
+            if (nulls == null) {
+                nulls = new BitSet();
+            }
+            nulls.set(size);
+        }
+        else {
+            switch (kind) {
+                case INT -> ints[size] = row.getInt(i);
+                case LONG -> longs[size] = row.getLong(i);
+                case DOUBLE -> doubles[size] = row.getDouble(i);
+                case OBJECT -> objects[size] = row.getObject(i);
+            }
+        }
+        size++;
+    }
+
+    private int capacity () {
+        return switch (kind) {
+            case INT -> ints.length;
+            case LONG -> longs.length;
+            case DOUBLE -> doubles.length;
+            case OBJECT -> objects.length;
+        };
+    }
+
+    private void resize (final int capacity) {
+        switch (kind) {
+            case INT -> ints = Arrays.copyOf(ints, capacity);
+            case LONG -> longs = Arrays.copyOf(longs, capacity);
+            case DOUBLE -> doubles = Arrays.copyOf(doubles, capacity);
+            case OBJECT -> objects = Arrays.copyOf(objects, capacity);
+        }
+    }
+
+    private void grow () {
+        resize(capacity() * 2);
+    }
+
+    void trim () {
+        if (size != capacity()) {
+            resize(size);
+        }
+    }
+
+    public Object key () {
+        return key;
+    }
+
+    public OID oid () {
+        return oid;
+    }
+
+    public Kind kind () {
+        return kind;
+    }
+
+    public int size () {
+        return size;
+    }
+
+    public boolean isNull (final int i) {
+        return nulls != null && nulls.get(i);
+    }
+
+    public int nullCount () {
+        return nulls == null ? 0 : nulls.cardinality();
+    }
+
+    // the arrays below are the storage itself, not copies;
+    // a slot of a null value holds zero
+    public int[] ints () {
+        checkKind(Kind.INT);
+        return ints;
+    }
+
+    public long[] longs () {
+        checkKind(Kind.LONG);
+        return longs;
+    }
+
+    public double[] doubles () {
+        checkKind(Kind.DOUBLE);
+        return doubles;
+    }
+
+    public Object[] objects () {
+        checkKind(Kind.OBJECT);
+        return objects;
+    }
+
+    private void checkKind (final Kind expected) {
+        if (kind != expected) {
+            throw new PGError("column %s is of kind %s, not %s", key, kind, expected);
+        }
+    }
+
+    public Object get (final int i) {
+        if (isNull(i)) {
+            return null;
+        }
+        return switch (kind) {
+            case INT -> ints[i];
+            case LONG -> longs[i];
+            case DOUBLE -> doubles[i];
+            case OBJECT -> objects[i];
+        };
+    }
+
+    @Override
+    public int count () {
+        return size;
+    }
+
+    @Override
+    public Object nth (final int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return get(i);
+    }
+
+    @Override
+    public Object nth (final int i, final Object notFound) {
+        if (i < 0 || i >= size) {
+            return notFound;
+        }
+        return get(i);
+    }
+
+    // boxes the values; fine for seq and vec in Clojure
+    @Override
+    public Iterator<Object> iterator () {
+        return new Iterator<>() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext () {
+                return i < size;
+            }
+
+            @Override
+            public Object next () {
+                if (i >= size) {
+                    throw new NoSuchElementException();
+                }
+                return get(i++);
+            }
+        };
+    }
+
+    @Override
+    public String toString () {
+        return String.format(
+                "<Column %s, oid: %s, kind: %s, size: %s, nulls: %s>",
+                key, oid, kind, size, nullCount()
+        );
+    }
+}
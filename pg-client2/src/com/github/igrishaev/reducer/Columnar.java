@@ -0,0 +1,44 @@
+package com.github.igrishaev.reducer;
+
+import clojure.lang.ITransientAssociative;
+import clojure.lang.PersistentHashMap;
+import com.github.igrishaev.PGError;
+import com.github.igrishaev.RowView;
+import com.github.igrishaev.msg.RowDescription;
+
+// Collects a result by columns rather than rows: a map of a column key
+// to a Column. Numbers get stored unboxed, see Column.
+public class Columnar implements IRowReducer {
+
+    public static IReducer INSTANCE = new Columnar();
+
+    public Object initiate () {
+        throw new PGError("the columnar reducer needs a row description");
+    }
+
+    public Object initiate (final Object[] keys, final RowDescription rowDescription) {
+        final RowDescription.Column[] cols = rowDescription.columns();
+        final Column[] columns = new Column[cols.length];
+        for (int i = 0; i < cols.length; i++) {
+            columns[i] = new Column(keys[i], cols[i].typeOid());
+        }
+        return columns;
+    }
+
+    public Object appendRow (final Object acc, final RowView row) {
+        final Column[] columns = (Column[]) acc;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].add(row, i);
+        }
+        return columns;
+    }
+
+    public Object finalize (final Object acc) {
+        ITransientAssociative map = PersistentHashMap.EMPTY.asTransient();
+        for (final Column column: (Column[]) acc) {
+            column.trim();
+            map = map.assoc(column.key(), column);
+        }
+        return map.persistent();
+    }
+}
@@ -5,4 +5,14 @@ public interface IReducer {
     Object initiate();
     Object append(Object acc, Object row);
     Object finalize(Object acc);
+
+    // Accum calls this one; the layout is shared by all rows of a result
+    default Object compose(final RowLayout layout, final Object[] vals) {
+        return compose(layout.keys(), vals);
+    }
+
+    // lazy mode; a reducer that can't defer decoding gets all the values
+    default Object compose(final RowLayout layout, final LazyValues lazy) {
+        return compose(layout, lazy.decodeAll());
+    }
 }
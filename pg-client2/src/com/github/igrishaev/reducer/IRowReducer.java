@@ -0,0 +1,26 @@
+package com.github.igrishaev.reducer;
+
+import com.github.igrishaev.PGError;
+import com.github.igrishaev.RowView;
+import com.github.igrishaev.msg.RowDescription;
+
+// A reducer that takes the row as a RowView instead of decoded values,
+// so it can read numbers without boxing them. The view is reused for
+// every row: copy what you need, never keep the view itself.
+public interface IRowReducer extends IReducer {
+
+    Object appendRow(Object acc, RowView row);
+
+    // called instead of initiate() once the columns are known
+    default Object initiate(final Object[] keys, final RowDescription rowDescription) {
+        return initiate();
+    }
+
+    default Object compose(final Object[] keys, final Object[] vals) {
+        throw new PGError("a row reducer takes a RowView, not composed rows");
+    }
+
+    default Object append(final Object acc, final Object row) {
+        throw new PGError("a row reducer takes a RowView, not composed rows");
+    }
+}
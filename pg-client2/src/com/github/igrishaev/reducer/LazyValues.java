@@ -0,0 +1,50 @@
+package com.github.igrishaev.reducer;
+
+import com.github.igrishaev.RowView;
+import com.github.igrishaev.codec.CodecParams;
+import com.github.igrishaev.msg.RowDescription;
+
+import java.nio.ByteBuffer;
+
+// The raw values of a row in lazy mode. A value gets decoded when it's
+// accessed for the first time and remembered; see RowMap.
+public final class LazyValues {
+
+    private final ByteBuffer buf;
+    private final int[] bounds;
+    private final RowDescription.Column[] cols;
+    private final CodecParams codecParams;
+
+    public LazyValues(
+            final byte[] bytes,
+            final int[] bounds,
+            final RowDescription.Column[] cols,
+            final CodecParams codecParams
+    ) {
+        this.buf = ByteBuffer.wrap(bytes);
+        this.bounds = bounds;
+        this.cols = cols;
+        this.codecParams = codecParams;
+    }
+
+    public int size () {
+        return bounds.length / 2;
+    }
+
+    // the buffer is shared by all the values of the row
+    public synchronized Object decode (final int i) {
+        final int length = bounds[i * 2 + 1];
+        if (length == -1) {
+            return null;
+        }
+        return RowView.decode(buf, bounds[i * 2], length, cols[i], codecParams);
+    }
+
+    public Object[] decodeAll () {
+        final Object[] vals = new Object[size()];
+        for (int i = 0; i < vals.length; i++) {
+            vals[i] = decode(i);
+        }
+        return vals;
+    }
+}
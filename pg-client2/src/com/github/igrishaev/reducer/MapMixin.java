@@ -14,4 +14,19 @@ public abstract class MapMixin implements IReducer {
         return map.persistent();
     }
 
+    // the row owns the values array, Accum allocates one per row
+    public Object compose(final RowLayout layout, final Object[] vals) {
+        if (layout.isUnique()) {
+            return new RowMap(layout, vals);
+        }
+        return compose(layout.keys(), vals);
+    }
+
+    public Object compose(final RowLayout layout, final LazyValues lazy) {
+        if (layout.isUnique()) {
+            return new RowMap(layout, lazy);
+        }
+        return compose(layout.keys(), lazy.decodeAll());
+    }
+
 }
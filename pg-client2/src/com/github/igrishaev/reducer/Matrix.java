@@ -4,7 +4,7 @@ import clojure.core$persistent_BANG_;
 import clojure.core$conj_BANG_;
 import clojure.lang.PersistentVector;
 
-public class Matrix extends MapMixin implements IReducer {
+public class Matrix implements IReducer {
 
     public static IReducer INSTANCE = new Matrix();
 
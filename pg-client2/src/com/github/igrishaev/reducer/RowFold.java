@@ -0,0 +1,29 @@
+package com.github.igrishaev.reducer;
+
+import clojure.lang.IFn;
+import com.github.igrishaev.RowView;
+
+import java.util.Objects;
+
+public class RowFold implements IRowReducer {
+
+    private final IFn f;
+    private final Object init;
+
+    public RowFold(final IFn f, final Object init) {
+        this.f = Objects.requireNonNull(f);
+        this.init = init;
+    }
+
+    public Object initiate () {
+        return init;
+    }
+
+    public Object appendRow (final Object acc, final RowView row) {
+        return f.invoke(acc, row);
+    }
+
+    public Object finalize (final Object acc) {
+        return acc;
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.igrishaev.reducer;
+
+import clojure.lang.IPersistentMap;
+import clojure.lang.ITransientMap;
+import clojure.lang.PersistentHashMap;
+import clojure.lang.Util;
+
+// The keys of a result and their positions, computed once per
+// RowDescription and shared by all the rows of that result.
+public final class RowLayout {
+
+    // above this, a hash lookup beats scanning the keys
+    private static final int SCAN_LIMIT = 8;
+
+    private final Object[] keys;
+    private final IPersistentMap index;
+    private final boolean isUnique;
+
+    public RowLayout(final Object[] keys) {
+        this.keys = keys;
+        // a Clojure map, so that a key matches the same way as in the
+        // scan below, e.g. 1 and 1N are the same key
+        ITransientMap map = PersistentHashMap.EMPTY.asTransient();
+        for (int i = 0; i < keys.length; i++) {
+            map = map.assoc(keys[i], i);
+        }
+        // a key function may map two columns to the same key
+        this.isUnique = map.count() == keys.length;
+        this.index = keys.length > SCAN_LIMIT ? map.persistent() : null;
+    }
+
+    public Object[] keys () {
+        return keys;
+    }
+
+    public int size () {
+        return keys.length;
+    }
+
+    public boolean isUnique () {
+        return isUnique;
+    }
+
+    public int indexOf (final Object key) {
+        if (index != null) {
+            final Object i = index.valAt(key);
+            return i == null ? -1 : (Integer) i;
+        }
+        // keywords are interned, so try identity first
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (Util.equiv(keys[i], key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
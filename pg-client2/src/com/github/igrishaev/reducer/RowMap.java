@@ -0,0 +1,218 @@
+package com.github.igrishaev.reducer;
+
+import clojure.lang.*;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// A row as a persistent map over a shared RowLayout and a flat array of
+// values, so building it costs nothing but the array. Reading is as
+// usual; assoc of a present key keeps the layout, any other change
+// turns the row into a regular persistent map. In lazy mode, a value
+// gets decoded from LazyValues on first access.
+public final class RowMap extends APersistentMap
+        implements IObj, IKVReduce, IMapIterable, IEditableCollection {
+
+    private static final Object PENDING = new Object();
+
+    private final RowLayout layout;
+    private final Object[] vals;
+    private final LazyValues lazy;
+    private final IPersistentMap meta;
+
+    public RowMap(final RowLayout layout, final Object[] vals) {
+        this(layout, vals, null, null);
+    }
+
+    public RowMap(final RowLayout layout, final LazyValues lazy) {
+        this(layout, pending(lazy.size()), lazy, null);
+    }
+
+    private RowMap(
+            final RowLayout layout,
+            final Object[] vals,
+            final LazyValues lazy,
+            final IPersistentMap meta
+    ) {
+        this.layout = layout;
+        this.vals = vals;
+        this.lazy = lazy;
+        this.meta = meta;
+    }
+
+    private static Object[] pending (final int size) {
+        final Object[] vals = new Object[size];
+        Arrays.fill(vals, PENDING);
+        return vals;
+    }
+
+    // A decoded value is not safe to publish through a plain write: it
+    // might be built with mutable fields, e.g. a transient. The rows made
+    // from the same one share its LazyValues, so its lock guards them all.
+    private Object val (final int i) {
+        if (lazy == null) {
+            return vals[i];
+        }
+        synchronized (lazy) {
+            Object val = vals[i];
+            if (val == PENDING) {
+                val = lazy.decode(i);
+                vals[i] = val;
+            }
+            return val;
+        }
+    }
+
+    private Object[] copyVals () {
+        if (lazy == null) {
+            return vals.clone();
+        }
+        synchronized (lazy) {
+            return vals.clone();
+        }
+    }
+
+    private IPersistentMap toPersistentMap () {
+        final IPersistentMap result = asTransient().persistent();
+        return meta == null ? result : (IPersistentMap) ((IObj) result).withMeta(meta);
+    }
+
+    // a transient of a regular hash map, like for any other row
+    @Override
+    public ITransientMap asTransient () {
+        final Object[] keys = layout.keys();
+        ITransientMap map = PersistentHashMap.EMPTY.asTransient();
+        for (int i = 0; i < keys.length; i++) {
+            map = map.assoc(keys[i], val(i));
+        }
+        return map;
+    }
+
+    @Override
+    public boolean containsKey (final Object key) {
+        return layout.indexOf(key) != -1;
+    }
+
+    @Override
+    public IMapEntry entryAt (final Object key) {
+        final int i = layout.indexOf(key);
+        return i == -1 ? null : MapEntry.create(layout.keys()[i], val(i));
+    }
+
+    @Override
+    public IPersistentMap assoc (final Object key, final Object val) {
+        final int i = layout.indexOf(key);
+        if (i == -1) {
+            return toPersistentMap().assoc(key, val);
+        }
+        final Object[] newVals = copyVals();
+        newVals[i] = val;
+        return new RowMap(layout, newVals, lazy, meta);
+    }
+
+    @Override
+    public IPersistentMap assocEx (final Object key, final Object val) {
+        if (containsKey(key)) {
+            throw Util.runtimeException("Key already present");
+        }
+        return assoc(key, val);
+    }
+
+    @Override
+    public IPersistentMap without (final Object key) {
+        if (!containsKey(key)) {
+            return this;
+        }
+        return toPersistentMap().without(key);
+    }
+
+    @Override
+    public Object valAt (final Object key) {
+        return valAt(key, null);
+    }
+
+    @Override
+    public Object valAt (final Object key, final Object notFound) {
+        final int i = layout.indexOf(key);
+        return i == -1 ? notFound : val(i);
+    }
+
+    @Override
+    public int count () {
+        return vals.length;
+    }
+
+    @Override
+    public IPersistentCollection empty () {
+        return (IPersistentCollection) PersistentArrayMap.EMPTY.withMeta(meta);
+    }
+
+    @Override
+    public ISeq seq () {
+        return RT.chunkIteratorSeq(iterator());
+    }
+
+    @Override
+    public Object kvreduce (final IFn f, Object init) {
+        final Object[] keys = layout.keys();
+        for (int i = 0; i < keys.length; i++) {
+            init = f.invoke(init, keys[i], val(i));
+            if (RT.isReduced(init)) {
+                return ((IDeref) init).deref();
+            }
+        }
+        return init;
+    }
+
+    private Iterator<Object> rowIterator (final boolean isKey, final boolean isVal) {
+        return new Iterator<>() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext () {
+                return i < vals.length;
+            }
+
+            @Override
+            public Object next () {
+                if (i >= vals.length) {
+                    throw new NoSuchElementException();
+                }
+                final int j = i++;
+                if (isKey && isVal) {
+                    return MapEntry.create(layout.keys()[j], val(j));
+                }
+                return isKey ? layout.keys()[j] : val(j);
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Object> iterator () {
+        return rowIterator(true, true);
+    }
+
+    @Override
+    public Iterator<Object> keyIterator () {
+        return rowIterator(true, false);
+    }
+
+    @Override
+    public Iterator<Object> valIterator () {
+        return rowIterator(false, true);
+    }
+
+    @Override
+    public IPersistentMap meta () {
+        return meta;
+    }
+
+    @Override
+    public IObj withMeta (final IPersistentMap meta) {
+        if (meta == this.meta) {
+            return this;
+        }
+        return new RowMap(layout, vals, lazy, meta);
+    }
+}
@@ -68,10 +68,7 @@ public class JSON {
 
     public static Object readValueBinary (final ByteBuffer buf) {
         final byte b = buf.get();
-        if (b == 1) {
-            buf.limit(buf.limit() - 1);
-        }
-        else {
+        if (b != 1) {
             buf.position(buf.position() - 1);
         }
         return readValue(buf);
@@ -79,7 +76,7 @@ public class JSON {
 
     public static Object readValue (final ByteBuffer buf) {
         final int offset = buf.arrayOffset() + buf.position();
-        final int len = buf.limit();
+        final int len = buf.remaining();
         try {
             return mapper.readValue(buf.array(), offset, len, Object.class);
         } catch (IOException e) {
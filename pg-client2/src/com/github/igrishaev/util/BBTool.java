@@ -42,7 +42,7 @@ public class BBTool {
             len++;
         }
         skip(buf, len + 1);
-        return new String(buf.array(), pos, len, charset);
+        return new String(buf.array(), buf.arrayOffset() + pos, len, charset);
     }
 
     public static Boolean isEnd (final ByteBuffer buf) {
@@ -59,7 +59,7 @@ public class BBTool {
     }
 
     public static byte[] getRestBytes (final ByteBuffer buf) {
-        final int size = buf.limit();
+        final int size = buf.remaining();
         final byte[] bytes = new byte[size];
         buf.get(bytes);
         return bytes;
@@ -67,7 +67,7 @@ public class BBTool {
 
     public static String getString(final ByteBuffer buf, final Charset charset) {
         final int offset = buf.arrayOffset() + buf.position();
-        return new String(buf.array(), offset, buf.limit(), charset);
+        return new String(buf.array(), offset, buf.remaining(), charset);
     }
 
     public static void skip (final ByteBuffer buf, final int offset) {
@@ -0,0 +1,38 @@
+package com.github.igrishaev.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// sits under the buffered stream: each write here is a write to the socket
+public class CountingOutputStream extends FilterOutputStream {
+
+    private long writeCount = 0;
+    private long byteCount = 0;
+
+    public CountingOutputStream (final OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write (final int b) throws IOException {
+        out.write(b);
+        writeCount++;
+        byteCount++;
+    }
+
+    @Override
+    public void write (final byte[] buf, final int offset, final int len) throws IOException {
+        out.write(buf, offset, len);
+        writeCount++;
+        byteCount += len;
+    }
+
+    public long getWriteCount () {
+        return writeCount;
+    }
+
+    public long getByteCount () {
+        return byteCount;
+    }
+}
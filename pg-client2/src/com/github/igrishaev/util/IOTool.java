@@ -11,13 +11,22 @@ public class IOTool {
 
     public static void skip (final InputStream inputStream, final int len) {
         try {
-            inputStream.readNBytes(len);
+            inputStream.skipNBytes(len);
         }
         catch (IOException e) {
             throw new PGError("Could not skip %s byte(s)", len);
         }
     }
 
+    public static int available (final InputStream inputStream) {
+        try {
+            return inputStream.available();
+        }
+        catch (IOException e) {
+            throw new PGError(e, "cannot check the input stream");
+        }
+    }
+
     public static byte[] readNBytes (final InputStream inputStream, final int len) {
         try {
             return inputStream.readNBytes(len);
@@ -27,6 +36,23 @@ public class IOTool {
         }
     }
 
+    public static void readNBytes (
+            final InputStream inputStream,
+            final byte[] buf,
+            final int offset,
+            final int len
+    ) {
+        try {
+            final int read = inputStream.readNBytes(buf, offset, len);
+            if (read < len) {
+                throw new PGError("Unexpected end of stream, expected %s byte(s), got %s", len, read);
+            }
+        }
+        catch (IOException e) {
+            throw new PGError(e, "Could not read %s byte(s)", len);
+        }
+    }
+
     public static int read (
             final InputStream inputStream,
             final byte[] buf
@@ -5,8 +5,12 @@
    clojure.lang.Keyword
    com.github.igrishaev.ConnConfig$Builder
    com.github.igrishaev.Connection
+   com.github.igrishaev.Cursor
    com.github.igrishaev.ExecuteParams
    com.github.igrishaev.ExecuteParams$Builder
+   com.github.igrishaev.IQueryListener
+   com.github.igrishaev.QueryTrace
+   com.github.igrishaev.Pipeline
    com.github.igrishaev.PreparedStatement
    com.github.igrishaev.codec.DecoderBin
    com.github.igrishaev.codec.DecoderTxt
@@ -14,8 +18,10 @@
    com.github.igrishaev.codec.EncoderTxt
    com.github.igrishaev.enums.CopyFormat
    com.github.igrishaev.enums.OID
+   com.github.igrishaev.enums.PipelineMode
    com.github.igrishaev.enums.TXStatus
    com.github.igrishaev.enums.TxLevel
+   com.github.igrishaev.reducer.Column
    com.github.igrishaev.reducer.IReducer
    com.github.igrishaev.type.JSON
    com.github.igrishaev.type.JSON$Wrapper
@@ -60,14 +66,19 @@
                 group-by
                 index-by
                 matrix?
+                columns?
                 java?
                 fold
+                row-fold
                 run
                 init
                 kv
                 first?
 
                 ;; format
+                lazy?
+                parallel-decode?
+                decode-executor
                 binary-encode?
                 binary-decode?
 
@@ -122,6 +133,9 @@
       matrix?
       (.asMatrix)
 
+      columns?
+      (.asColumns)
+
       java?
       (.asJava)
 
@@ -137,6 +151,18 @@
       (and fold init)
       (.fold fold init)
 
+      (and row-fold init)
+      (.rowFold row-fold init)
+
+      (some? lazy?)
+      (.lazy lazy?)
+
+      (some? parallel-decode?)
+      (.parallelDecode parallel-decode?)
+
+      decode-executor
+      (.decodeExecutor decode-executor)
+
       (some? binary-encode?)
       (.binaryEncode binary-encode?)
 
@@ -183,6 +209,19 @@
       (.build))))
 
 
+(defn ->query-listener
+  "
+  Turn a function into a query listener. The function is called
+  with a map of timings, counters and the SQL once a query is done.
+  "
+  ^IQueryListener [x]
+  (if (instance? IQueryListener x)
+    x
+    (reify IQueryListener
+      (onEnd [_ trace]
+        (x (.toClojure ^QueryTrace trace))))))
+
+
 (defn ->conn-config ^ConnConfig$Builder [params]
 
   (let [{:keys [user
@@ -205,7 +244,9 @@
                 so-tcp-no-delay?
                 so-timeout
                 so-recv-buf-size
-                so-send-buf-size]}
+                so-send-buf-size
+                statement-cache-size
+                query-listener]}
         params]
 
     (cond-> (new ConnConfig$Builder user database)
@@ -267,6 +308,12 @@
       so-send-buf-size
       (.SOSendBufSize so-send-buf-size)
 
+      statement-cache-size
+      (.statementCacheSize statement-cache-size)
+
+      query-listener
+      (.queryListener (->query-listener query-listener))
+
       :finally
       (.build))))
 
@@ -324,6 +371,33 @@
   (.getCreatedAt conn))
 
 
+(defn statement-cache-stats
+  "
+  Return a map of the prepared statement cache counters:
+  size, hits, misses and evictions.
+  "
+  [^Connection conn]
+  (.toClojure (.getStatementCacheStats conn)))
+
+
+(defn read-stats
+  "
+  Return how many bytes the connection has received so far.
+  "
+  [^Connection conn]
+  {:bytes (.getBytesRead conn)})
+
+
+(defn write-stats
+  "
+  Return a map with the number of socket writes and bytes
+  sent by the connection so far.
+  "
+  [^Connection conn]
+  {:writes (.getWriteCount conn)
+   :bytes (.getBytesWritten conn)})
+
+
 (defn close-statement
   [^Connection conn ^PreparedStatement stmt]
   (.closeStatement conn stmt))
@@ -383,6 +457,54 @@
    (.execute conn sql (->execute-params opt))))
 
 
+(defn execute-batch
+  "
+  Execute a prepared statement once per each row of parameters.
+  The rows are sent in chunks with one Sync at the end, so the whole
+  batch is a single implicit transaction. Return a vector of affected
+  row counts; the rows are not returned, and `:row-count` is not
+  supported.
+  "
+  ([^Connection conn ^PreparedStatement stmt rows]
+   (execute-batch conn stmt rows nil))
+
+  ([^Connection conn ^PreparedStatement stmt rows opt]
+   (vec (.executeBatch conn stmt rows (->execute-params opt)))))
+
+
+(defn pipeline
+  "
+  Send several statements at once and return a vector of their
+  results. Each step is either a SQL string, a prepared statement,
+  or a vector of [sql-or-statement opt].
+
+  By default, each step is followed by Sync so it fails on its own.
+  With `:sync-once? true`, the steps share a single Sync and thus run
+  in one implicit transaction.
+  "
+  ([^Connection conn steps]
+   (pipeline conn steps nil))
+
+  ([^Connection conn steps {:keys [sync-once?]}]
+   (let [^Pipeline pipe
+         (.pipeline conn (if sync-once?
+                           PipelineMode/SYNC_ONCE
+                           PipelineMode/SYNC_EACH))]
+     (doseq [step steps]
+       (let [[target opt]
+             (if (sequential? step)
+               step
+               [step nil])
+
+             params
+             (->execute-params opt)]
+
+         (if (prepared-statement? target)
+           (.executeStatement pipe ^PreparedStatement target params)
+           (.execute pipe ^String target params))))
+     (vec (.run pipe)))))
+
+
 (defmacro with-statement
   [[bind conn sql oids] & body]
 
@@ -401,6 +523,32 @@
            (close-statement ~CONN ~bind))))))
 
 
+(defn cursor
+  "
+  Open a cursor over a SQL expression or a prepared statement.
+  The cursor is reducible and iterable; it fetches `:row-count`
+  rows at once (1000 by default). Must be called in a transaction
+  and closed afterwards, see `with-cursor`.
+  "
+  (^Cursor [^Connection conn sql-or-stmt]
+   (cursor conn sql-or-stmt nil))
+
+  (^Cursor [^Connection conn sql-or-stmt opt]
+   (let [params (->execute-params opt)]
+     (if (prepared-statement? sql-or-stmt)
+       (.cursor conn ^PreparedStatement sql-or-stmt params)
+       (.cursor conn ^String sql-or-stmt params)))))
+
+
+(defmacro with-cursor
+  [[bind conn sql-or-stmt opt] & body]
+  `(let [~bind (cursor ~conn ~sql-or-stmt ~opt)]
+     (try
+       ~@body
+       (finally
+         (.close ~(with-meta bind {:tag `Cursor}))))))
+
+
 (defmacro with-connection
   [[bind config] & body]
   `(let [~bind (connect ~config)]
@@ -562,6 +710,11 @@
   (.write writer (.toString conn)))
 
 
+(defmethod print-method Column
+  [^Column column ^Writer writer]
+  (.write writer (.toString column)))
+
+
 (defn listen
   "
   Subscribe the connection to a given channel.
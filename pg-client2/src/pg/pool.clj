@@ -14,7 +14,18 @@
 
   (let [{:keys [min-size
                 max-size
-                max-lifetime]}
+                max-lifetime
+                acquire-timeout
+                idle-timeout
+                maintenance-interval
+                validate-after-idle
+                validation-timeout
+                check-pending-bytes?
+                ping-interval
+                ping-timeout
+                name
+                register-mbean?
+                listener]}
         opt]
 
     (cond-> (PoolConfig/builder)
@@ -28,6 +39,39 @@
       max-lifetime
       (.maxLifetime max-lifetime)
 
+      acquire-timeout
+      (.acquireTimeout acquire-timeout)
+
+      idle-timeout
+      (.idleTimeout idle-timeout)
+
+      maintenance-interval
+      (.maintenanceInterval maintenance-interval)
+
+      validate-after-idle
+      (.validateAfterIdle validate-after-idle)
+
+      validation-timeout
+      (.validationTimeout validation-timeout)
+
+      (some? check-pending-bytes?)
+      (.checkPendingBytes check-pending-bytes?)
+
+      ping-interval
+      (.pingInterval ping-interval)
+
+      ping-timeout
+      (.pingTimeout ping-timeout)
+
+      name
+      (.name name)
+
+      (some? register-mbean?)
+      (.registerMBean register-mbean?)
+
+      listener
+      (.listener listener)
+
       :finally
       (.build))))
 
@@ -78,6 +122,17 @@
    :used (used-count pool)})
 
 
+(defn metrics
+  "
+  Return a map of pool counters: borrows, waits, wait time,
+  timeouts, exhaustion events, the wait queue depth, validation
+  results, connections created and closed by reason, and histograms
+  of borrow latency, hold time and connect time in nanoseconds.
+  "
+  [^Pool pool]
+  (.toClojure (.getMetrics pool)))
+
+
 (defn closed? ^Boolean [^Pool pool]
   (.isClosed pool))
 
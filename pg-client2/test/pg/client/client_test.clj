@@ -1,6 +1,11 @@
 (ns pg.client.client-test
   (:import
    com.github.igrishaev.PGError
+   com.github.igrishaev.RowView
+   com.github.igrishaev.reducer.Column
+   com.github.igrishaev.reducer.Column$Kind
+   com.github.igrishaev.reducer.RowLayout
+   com.github.igrishaev.reducer.RowMap
    java.io.ByteArrayOutputStream
    java.io.InputStream
    java.io.OutputStream
@@ -13,7 +18,8 @@
    java.util.ArrayList
    java.util.HashMap
    java.util.Date
-   java.util.concurrent.ExecutionException)
+   java.util.concurrent.ExecutionException
+   java.util.concurrent.Executors)
   (:require
    [less.awful.ssl :as ssl]
    [clojure.data.csv :as csv]
@@ -1448,6 +1454,206 @@ drop table %1$s;
       (is (= #{[3 4] [5 6] [1 2]} res)))))
 
 
+(deftest test-acc-as-row-fold
+
+  (pg/with-connection [conn *CONFIG*]
+
+    (let [query
+          "with foo (a, b, c, d) as (values (1::int4, 2::int8, 1.5::float8, true), (3, null, 2.5, false), (5, 6, 3.5, true)) select * from foo"
+
+          fold
+          (fn [[sum-a sum-b sum-c trues] ^RowView row]
+            [(+ sum-a (.getInt row 0))
+             (if (.isNull row 1) sum-b (+ sum-b (.getLong row 1)))
+             (+ sum-c (.getDouble row 2))
+             (if (.getBoolean row 3) (inc trues) trues)])]
+
+      (testing "text"
+        (is (= [9 8 7.5 2]
+               (pg/execute conn query {:row-fold fold :init [0 0 0.0 0]}))))
+
+      (testing "binary"
+        (is (= [9 8 7.5 2]
+               (pg/execute conn query {:row-fold fold
+                                       :init [0 0 0.0 0]
+                                       :binary-decode? true}))))
+
+      (testing "null access"
+        (is (thrown-with-msg?
+             PGError
+             #"column 1 is null"
+             (pg/execute conn query {:row-fold (fn [acc ^RowView row]
+                                                 (.getLong row 1))
+                                     :init nil})))))))
+
+
+(deftest test-acc-as-columns
+
+  (pg/with-connection [conn *CONFIG*]
+
+    (let [query
+          "select x::int4 as a, x::int8 * 10 as b, x::float8 / 2 as c, x::text as d from generate_series(1, 100) as s(x) union all select null, null, null, null"]
+
+      (doseq [binary? [false true]]
+        (testing (str "binary: " binary?)
+
+          (let [{:keys [^Column a ^Column b ^Column c ^Column d]}
+                (pg/execute conn query {:columns? true
+                                        :binary-decode? binary?})]
+
+            (is (= 101 (count a) (count b) (count c) (count d)))
+
+            (is (= Column$Kind/INT (.kind a)))
+            (is (= Column$Kind/LONG (.kind b)))
+            (is (= Column$Kind/DOUBLE (.kind c)))
+            (is (= Column$Kind/OBJECT (.kind d)))
+
+            (is (= 101 (alength (.ints a))))
+            (is (= 5050 (reduce + (.ints a))))
+            (is (= 50500 (reduce + (.longs b))))
+            (is (= 2525.0 (reduce + (.doubles c))))
+
+            (is (= [1 2 3] (take 3 a)))
+            (is (= "100" (nth d 99)))
+            (is (.isNull a 100))
+            (is (nil? (nth b 100)))
+            (is (= 1 (.nullCount c)))))))
+
+      (testing "no rows"
+        (let [{:keys [^Column a]}
+              (pg/execute conn "select 1 as a where false" {:columns? true})]
+          (is (= 0 (count a)))
+          (is (= Column$Kind/INT (.kind a)))))))
+
+
+(deftest test-row-map
+
+  (pg/with-connection [conn *CONFIG*]
+
+    (let [[row1 row2]
+          (pg/execute conn "select x as a, x * 2 as b, null as c from generate_series(1, 2) as s(x)")]
+
+      (is (= {:a 1 :b 2 :c nil} row1))
+      (is (= row1 {:a 1 :b 2 :c nil}))
+      (is (= (hash {:a 1 :b 2 :c nil}) (hash row1)))
+      (is (= {:a 2 :b 4 :c nil} row2))
+
+      (is (= 1 (:a row1)))
+      (is (= :nf (get row1 :zz :nf)))
+      (is (contains? row1 :c))
+      (is (= [:a :b :c] (sort (keys row1))))
+
+      (is (= {:a 42 :b 2 :c nil} (assoc row1 :a 42)))
+      (is (= {:a 1 :b 2 :c nil :d 3} (assoc row1 :d 3)))
+      (is (= {:a 1 :b 2} (dissoc row1 :c)))
+      (is (= {:m 1} (meta (with-meta row1 {:m 1}))))
+      (is (= [:a :b :c] (sort (reduce-kv (fn [acc k _] (conj acc k)) [] row1))))
+      (is (= "{:a 1, :b 2, :c nil}" (pr-str (into (sorted-map) row1))))
+      (is (= {:a 1 :b 2 :c nil :d 3} (persistent! (assoc! (transient row1) :d 3))))
+      (is (= {:a 1 :b 2 :c nil :d 3} (into row1 {:d 3})))
+      (is (= {:a 1 :b 2 :c nil} row1)))
+
+    (testing "keys clash after the key function"
+      (is (= [{:a-b 2}]
+             (pg/execute conn "select 1 as a_b, 2 as \"a-b\"" {:kebab? true}))))))
+
+
+(deftest test-row-map-key-equality
+  ;; narrow rows scan the keys, wide ones look them up in an index
+  (doseq [n [3 20]]
+    (let [ks (vec (range n))
+          row (new RowMap
+                   (new RowLayout (object-array ks))
+                   (object-array (map #(* 10 %) ks)))]
+      (testing (str "columns: " n)
+        (is (= 20 (get row 2)))
+        (is (= 20 (get row (int 2))))
+        (is (= 20 (get row 2N)))
+        (is (contains? row (short 2)))
+        (is (= :nf (get row 2.5 :nf)))
+        (is (= (zipmap ks (map #(* 10 %) ks)) row))))))
+
+
+(deftest test-lazy-decode
+
+  (pg/with-connection [conn *CONFIG*]
+
+    (let [query
+          "select x as id, x::text as name, x::numeric / 3 as num, '{\"a\": 1}'::jsonb as doc, null as nothing from generate_series(1, 3) as s(x)"]
+
+      (doseq [binary? [false true]]
+        (testing (str "binary: " binary?)
+
+          (let [eager
+                (pg/execute conn query {:binary-decode? binary?})
+
+                lazy
+                (pg/execute conn query {:binary-decode? binary?
+                                        :lazy? true})]
+
+            ;; the rows must outlive the receive buffer
+            (pg/execute conn "select 'overwrite' as x")
+
+            (is (= eager lazy))
+            (is (= 2 (-> lazy second :id)))
+            (is (= {:a 1} (-> lazy first :doc)))
+            (is (nil? (-> lazy first :nothing)))
+            (is (= (assoc (first eager) :id 42)
+                   (assoc (first lazy) :id 42))))))
+
+      (testing "index by"
+        (let [res (pg/execute conn query {:index-by :id :lazy? true})]
+          (is (= #{1 2 3} (set (keys res))))
+          (is (= "3" (-> res (get 3) :name)))))
+
+      (testing "matrix decodes eagerly"
+        (is (= [[1 "1"] [2 "2"]]
+               (pg/execute conn
+                           "select x, x::text from generate_series(1, 2) as s(x)"
+                           {:matrix? true :lazy? true})))))))
+
+
+(deftest test-parallel-decode
+
+  (pg/with-connection [conn *CONFIG*]
+
+    (let [query
+          "select x as id, jsonb_build_object('n', x, 'tags', jsonb_build_array('a', 'b')) as doc from generate_series(1, 3000) as s(x)"]
+
+      (doseq [binary? [false true]]
+        (testing (str "binary: " binary?)
+
+          (let [eager
+                (pg/execute conn query {:binary-decode? binary?})
+
+                parallel
+                (pg/execute conn query {:binary-decode? binary?
+                                        :parallel-decode? true})]
+
+            (is (= 3000 (count parallel)))
+            (is (= eager parallel))
+            (is (= (range 1 3001) (map :id parallel))))))
+
+      (testing "custom executor and a reducer"
+        (let [executor (Executors/newFixedThreadPool 2)]
+          (try
+            (is (= 4501500
+                   (pg/execute conn query {:parallel-decode? true
+                                           :decode-executor executor
+                                           :fold (fn [acc row]
+                                                   (+ acc (-> row :doc :n)))
+                                           :init 0})))
+            (finally
+              (.shutdown executor)))))
+
+      (testing "cursor"
+        (pg/with-tx [conn]
+          (pg/with-cursor [cur conn query {:parallel-decode? true
+                                           :row-count 1000}]
+            (is (= (range 1 1001) (map :id (.fetch cur))))
+            (is (= (range 1001 2001) (map :id (.fetch cur))))))))))
+
+
 (deftest test-acc-as-matrix
 
   (pg/with-connection [conn *CONFIG*]
@@ -1537,6 +1743,358 @@ drop table %1$s;
         (is (= [{:eq true}] res))))))
 
 
+(deftest test-execute-one-shot-multiple-times
+  (pg/with-connection [conn *CONFIG*]
+    (dotimes [i 3]
+      (let [res (pg/execute conn
+                            "select $1::int4 as num, $2 as text"
+                            {:params [i "hello"]})]
+        (is (= [{:num i :text "hello"}] res))))
+    (is (= :I (pg/status conn)))))
+
+
+(deftest test-execute-one-shot-error-recover
+  (pg/with-connection [conn *CONFIG*]
+    (try
+      (pg/execute conn "select $1::int4 / 0 as num" {:params [1]})
+      (is false)
+      (catch PGError e
+        (is (-> e ex-message (str/includes? "division by zero")))))
+    (is (= :I (pg/status conn)))
+    (is (= [{:num 2}]
+           (pg/execute conn "select $1::int4 as num" {:params [2]})))))
+
+
+(deftest test-execute-unknown-oid-binary
+  (pg/with-connection [conn (assoc *CONFIG* :binary-encode? true)]
+    (let [res (pg/execute conn
+                          "select $1::float8 as num"
+                          {:params [(float 1.5)]})]
+      (is (= [{:num 1.5}] res)))))
+
+
+(deftest test-statement-cache
+  (pg/with-connection [conn (assoc *CONFIG* :statement-cache-size 2)]
+
+    (is (= {:size 0 :max-size 2 :hits 0 :misses 0 :evictions 0}
+           (pg/statement-cache-stats conn)))
+
+    (dotimes [i 3]
+      (is (= [{:num i}]
+             (pg/execute conn "select $1::int4 as num" {:params [i]}))))
+
+    (is (= {:size 1 :max-size 2 :hits 2 :misses 1 :evictions 0}
+           (pg/statement-cache-stats conn)))
+
+    (pg/execute conn "select $1::int4 as a" {:params [1]})
+    (pg/execute conn "select $1::int4 as b" {:params [1]})
+
+    (is (= {:size 2 :max-size 2 :hits 2 :misses 3 :evictions 1}
+           (pg/statement-cache-stats conn)))
+
+    (testing "an evicted statement gets prepared again"
+      (is (= [{:num 1}]
+             (pg/execute conn "select $1::int4 as num" {:params [1]})))
+      (is (= {:size 2 :max-size 2 :hits 2 :misses 4 :evictions 2}
+             (pg/statement-cache-stats conn))))
+
+    (testing "another OID makes another key"
+      (pg/execute conn "select $1::int4 as num" {:params [(int 1)]})
+      (is (= {:size 2 :max-size 2 :hits 2 :misses 5 :evictions 3}
+             (pg/statement-cache-stats conn))))
+
+    (testing "evicted statements are closed"
+      (let [res
+            (pg/query conn "select name from pg_prepared_statements")]
+        (is (= 2 (count res)))))))
+
+
+(deftest test-statement-cache-stale
+  (pg/with-connection [conn (assoc *CONFIG* :statement-cache-size 8)]
+    (is (= [{:num 1}]
+           (pg/execute conn "select $1::int4 as num" {:params [1]})))
+    (pg/query conn "deallocate all")
+    (try
+      (pg/execute conn "select $1::int4 as num" {:params [1]})
+      (is false)
+      (catch PGError e
+        (is (-> e ex-message (str/includes? "does not exist")))))
+    (is (= [{:num 1}]
+           (pg/execute conn "select $1::int4 as num" {:params [1]})))))
+
+
+(deftest test-statement-cache-keeps-on-error
+  (pg/with-connection [conn (assoc *CONFIG* :statement-cache-size 8)]
+    (pg/query conn "create temp table cache_uniq (id int4 primary key)")
+    (is (= {:inserted 1}
+           (pg/execute conn "insert into cache_uniq values ($1)" {:params [(int 1)]})))
+    (try
+      (pg/execute conn "insert into cache_uniq values ($1)" {:params [(int 1)]})
+      (is false)
+      (catch PGError e
+        (is (-> e ex-message (str/includes? "23505")))))
+    (is (= {:size 1 :max-size 8 :hits 1 :misses 1 :evictions 0}
+           (pg/statement-cache-stats conn)))))
+
+
+(deftest test-pipeline-ok
+  (pg/with-connection [conn *CONFIG*]
+    (pg/with-statement [stmt conn "select $1::int4 as num"]
+      (let [res
+            (pg/pipeline conn
+                         ["select 1 as one"
+                          ["select $1::text as text" {:params ["hello"]}]
+                          [stmt {:params [42]}]
+                          [stmt {:params [43] :first? true}]])]
+        (is (= [[{:one 1}]
+                [{:text "hello"}]
+                [{:num 42}]
+                {:num 43}]
+               res))))))
+
+
+(deftest test-pipeline-sync-each-error
+  (pg/with-connection [conn *CONFIG*]
+    (let [table (gen-table)]
+      (pg/query conn (format "create temp table %s (id int)" table))
+      (try
+        (pg/pipeline conn
+                     [[(format "insert into %s values ($1)" table) {:params [1]}]
+                      "selekt 42"
+                      [(format "insert into %s values ($1)" table) {:params [2]}]])
+        (is false)
+        (catch PGError e
+          (is (-> e ex-message (str/starts-with? "Pipeline step 1 failed")))))
+      (is (= :I (pg/status conn)))
+      (is (= [{:id 1} {:id 2}]
+             (pg/query conn (format "select * from %s order by id" table)))))))
+
+
+(deftest test-pipeline-sync-once-error
+  (pg/with-connection [conn *CONFIG*]
+    (let [table (gen-table)]
+      (pg/query conn (format "create temp table %s (id int)" table))
+      (try
+        (pg/pipeline conn
+                     [[(format "insert into %s values ($1)" table) {:params [1]}]
+                      "selekt 42"
+                      [(format "insert into %s values ($1)" table) {:params [2]}]]
+                     {:sync-once? true})
+        (is false)
+        (catch PGError e
+          (is (-> e ex-message (str/includes? "syntax error")))))
+      (is (= :I (pg/status conn)))
+      (is (= [] (pg/query conn (format "select * from %s" table)))))))
+
+
+(deftest test-pipeline-sync-once-error-temp-statements
+  (pg/with-connection [conn (assoc *CONFIG* :binary-encode? true)]
+    (try
+      (pg/pipeline conn
+                   [["select $1::float4 as x" {:params [(float 1.5)]}]
+                    "selekt 42"]
+                   {:sync-once? true})
+      (is false)
+      (catch PGError e
+        (is (-> e ex-message (str/includes? "syntax error")))))
+    (is (= :I (pg/status conn)))
+    (is (= [] (pg/query conn "select name from pg_prepared_statements")))))
+
+
+(deftest test-pipeline-large
+  (pg/with-connection [conn *CONFIG*]
+    (doseq [opt [nil {:sync-once? true}]]
+      (let [steps
+            (repeat 5000 "select x from generate_series(1, 100) as s(x)")
+
+            res
+            (pg/pipeline conn steps opt)]
+
+        (is (= 5000 (count res)))
+        (is (every? #(= 100 (count %)) res))))))
+
+
+(deftest test-execute-batch-ok
+  (pg/with-connection [conn *CONFIG*]
+    (let [table (gen-table)]
+      (pg/query conn (format "create temp table %s (id int, title text)" table))
+      (pg/with-statement [stmt conn (format "insert into %s values ($1, $2)" table)]
+        (let [rows (for [i (range 2500)]
+                     [i (str "row" i)])
+              res (pg/execute-batch conn stmt rows)]
+          (is (= 2500 (count res)))
+          (is (every? #{1} res))))
+      (is (= [{:count 2500}]
+             (pg/query conn (format "select count(*) from %s" table))))
+      (pg/with-statement [stmt conn (format "update %s set title = $1 where id < $2" table)]
+        (is (= [10 0 100]
+               (pg/execute-batch conn stmt [["a" 10] ["b" -1] ["c" 100]]))))
+      (pg/with-statement [stmt conn "select $1::int4 as x"]
+        (is (= [1 1] (pg/execute-batch conn stmt [[1] [2]])))
+        (is (= [] (pg/execute-batch conn stmt [])))))))
+
+
+(deftest test-execute-batch-row-count
+  (pg/with-connection [conn *CONFIG*]
+    (pg/with-statement [stmt conn "select $1::int4 as x"]
+      (is (thrown-with-msg? PGError #"a batch cannot limit the row count: 1"
+            (pg/execute-batch conn stmt [[1] [2]] {:row-count 1})))
+      (is (= [1 1] (pg/execute-batch conn stmt [[1] [2]]))))))
+
+
+(deftest test-execute-batch-error
+  (pg/with-connection [conn *CONFIG*]
+    (let [table (gen-table)]
+      (pg/query conn (format "create temp table %s (id int primary key)" table))
+      (pg/with-statement [stmt conn (format "insert into %s values ($1)" table)]
+        (try
+          (pg/execute-batch conn stmt (concat (for [i (range 1500)] [i]) [[1]]))
+          (is false)
+          (catch PGError e
+            (is (-> e ex-message (str/includes? "duplicate key")))))
+        (is (= :I (pg/status conn)))
+        (is (= [{:count 0}]
+               (pg/query conn (format "select count(*) from %s" table))))
+        (is (= [1 1] (pg/execute-batch conn stmt [[1] [2]])))))))
+
+
+(deftest test-receive-buffer-grow-shrink
+  (pg/with-connection [conn *CONFIG*]
+    (let [res (pg/execute conn "select repeat('x', 3000000) as x, null as y, 1 as z")]
+      (is (= 3000000 (-> res first :x count)))
+      (is (= {:y nil :z 1} (-> res first (dissoc :x)))))
+    (is (= [{:a "a" :b nil :c 3} {:a "a" :b nil :c 4}]
+           (pg/execute conn "select 'a' as a, null::text as b, x as c from generate_series(3, 4) as s(x)")))
+    (is (= [{:j {:foo [1 2 3]}}]
+           (pg/execute conn "select '{\"foo\": [1, 2, 3]}'::jsonb as j"))))
+  (pg/with-connection [conn (assoc *CONFIG* :binary-decode? true)]
+    (is (= [{:a "a" :b nil :c 3 :j {:foo [1 2 3]}}]
+           (pg/execute conn "select 'a' as a, null::text as b, 3 as c, '{\"foo\": [1, 2, 3]}'::jsonb as j")))))
+
+
+(deftest test-write-stats-one-write-per-request
+  (pg/with-connection [conn *CONFIG*]
+    (let [{writes1 :writes bytes1 :bytes} (pg/write-stats conn)
+          _ (pg/execute conn "select $1::int4 as x" {:params [1]})
+          {writes2 :writes bytes2 :bytes} (pg/write-stats conn)
+          _ (pg/query conn "select 1")
+          {writes3 :writes} (pg/write-stats conn)]
+      (is (pos? writes1))
+      (is (= 1 (- writes2 writes1)))
+      (is (< bytes1 bytes2))
+      (is (= 1 (- writes3 writes2))))))
+
+
+(deftest test-cursor-reduce
+  (pg/with-connection [conn *CONFIG*]
+    (pg/with-tx [conn]
+      (pg/with-cursor [cur conn "select x from generate_series(1, 10) as s(x)" {:row-count 3}]
+        (is (= 3 (.getFetchSize cur)))
+        (is (= (range 1 11)
+               (into [] (map :x) cur)))
+        (is (.isDone cur))))
+    (pg/with-tx [conn]
+      (pg/with-cursor [cur conn "select x from generate_series(1, 10) as s(x)" {:row-count 4}]
+        (is (= [1 2 3 4 5]
+               (into [] (comp (map :x) (take 5)) cur)))
+        (is (not (.isDone cur)))
+        (is (= [9 10] (mapv :x (.fetch cur))))
+        (is (.isDone cur))
+        (is (nil? (.fetch cur)))))
+    (is (= :I (pg/status conn)))))
+
+
+(deftest test-cursor-iterator-stream
+  (pg/with-connection [conn *CONFIG*]
+    (pg/with-tx [conn]
+      (pg/with-statement [stmt conn "select x from generate_series(1, $1) as s(x)"]
+        (pg/with-cursor [cur conn stmt {:params [7] :row-count 2}]
+          (is (= [1 2 3 4 5 6 7] (mapv :x (iterator-seq cur)))))
+        (with-open [cur (pg/cursor conn stmt {:params [0]})]
+          (is (= 0 (-> cur .stream .count))))
+        (pg/with-cursor [cur conn stmt {:params [5] :row-count 2 :matrix? true}]
+          (is (= [[1] [2] [3] [4] [5]] (vec cur)))))
+      (is (= [{:one 1}] (pg/query conn "select 1 as one"))))))
+
+
+(deftest test-cursor-no-tx
+  (pg/with-connection [conn *CONFIG*]
+    (try
+      (pg/cursor conn "select 1")
+      (is false)
+      (catch PGError e
+        (is (= "A cursor requires a transaction, the status is IDLE"
+               (ex-message e)))))))
+
+
+(deftest test-cursor-error
+  (pg/with-connection [conn *CONFIG*]
+    (pg/with-tx [conn {:rollback? true}]
+      (pg/with-cursor [cur conn "select 1 / (x - 3) as v from generate_series(1, 5) as s(x)" {:row-count 1}]
+        (is (= {:v 0} (.next cur)))
+        (is (= {:v -1} (.next cur)))
+        (try
+          (.next cur)
+          (is false)
+          (catch PGError e
+            (is (-> e ex-message (str/includes? "division by zero")))))
+        (is (.isDone cur))
+        (is (not (.hasNext cur)))))
+    (is (= :I (pg/status conn)))))
+
+
+(deftest test-query-listener
+  (let [traces (atom [])
+        config (assoc *CONFIG* :query-listener (fn [trace]
+                                                 (swap! traces conj trace)))]
+    (pg/with-connection [conn config]
+      (pg/query conn "select x from generate_series(1, 3) as s(x)")
+      (pg/execute conn "select $1::int4 as x" {:params [1]})
+      (is (thrown? PGError (pg/query conn "selekt 1")))
+      (pg/query conn "create temp table foo (id int)"))
+
+    (let [[t1 t2 t3 t4] @traces]
+
+      (is (= 4 (count @traces)))
+
+      (is (= :query (:phase t1)))
+      (is (= "select x from generate_series(1, 3) as s(x)" (:sql t1)))
+      (is (= 3 (:rows t1)))
+      (is (< (:started-at t1)
+             (:sent-at t1)
+             (:first-byte-at t1)))
+      (is (<= (:first-byte-at t1)
+              (:row-description-at t1)
+              (:last-data-row-at t1)
+              (:ready-for-query-at t1)
+              (:ended-at t1)))
+      (is (pos? (:decode-nanos t1)))
+      (is (pos? (:bytes-read t1)))
+      (is (pos? (:bytes-written t1)))
+      (is (nil? (:error t1)))
+
+      (is (= :execute (:phase t2)))
+      (is (= 1 (:rows t2)))
+
+      (is (= 0 (:rows t3)))
+      (is (instance? PGError (:error t3)))
+
+      (is (= 0 (:row-description-at t4)))
+      (is (= 0 (:last-data-row-at t4))))
+
+    ;; a cache miss prepares and executes in two round trips
+    (reset! traces [])
+    (pg/with-connection [conn (assoc config :statement-cache-size 16)]
+      (pg/execute conn "select $1 as x" {:params [1]})
+      (pg/execute conn "select $1 as x" {:params [1]}))
+
+    (let [[t1 t2] @traces]
+      (is (= 2 (count @traces)))
+      (is (= 1 (:rows t1) (:rows t2)))
+      (is (<= (:sent-at t1) (:first-byte-at t1) (:ready-for-query-at t1)))
+      (is (<= (:sent-at t2) (:first-byte-at t2) (:ready-for-query-at t2))))))
+
+
 (deftest test-statement-repr
   (let [repr
         "<Prepared statement, name: s1, param(s): 1, OIDs: [INT4], SQL: select $1::int4 as foo>"]
@@ -1839,6 +2397,26 @@ drop table %1$s;
       (is (= (str x1) (str x2))))))
 
 
+(deftest test-numeric-special-values
+  (doseq [binary? [false true]]
+    (pg/with-connection [conn (assoc *CONFIG*
+                                     :binary-encode? binary?
+                                     :binary-decode? binary?)]
+      (let [res
+            (pg/execute conn
+                        "select $1::numeric as a, 'Infinity'::numeric as b, '-Infinity'::numeric as c, 0.00::numeric as d, $2::numeric as e"
+                        {:params [##NaN (bigdec "-0.000001234")]})
+
+            {:keys [a b c d e]}
+            (first res)]
+
+        (is (Double/isNaN a))
+        (is (= ##Inf b))
+        (is (= ##-Inf c))
+        (is (= (bigdec "0.00") d))
+        (is (= (bigdec "-0.000001234") e))))))
+
+
 (deftest test-cancel-query
 
   (let [conn1
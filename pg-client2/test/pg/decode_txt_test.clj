@@ -276,3 +276,34 @@
                [(OffsetDateTime/parse "2023-09-13T09:13:47.708253+06:00")
                 (OffsetDateTime/parse "2023-09-13T09:13:47.708253+07:00")]]]
              res)))))
+
+
+(deftest test-date-time-special
+
+  (testing "BC"
+    (is (= (LocalDate/of -43 3 15)
+           (pg/decode-txt "0044-03-15 BC" oid/date)))
+    (is (= (LocalDateTime/of -43 3 15 12 30 0)
+           (pg/decode-txt "0044-03-15 12:30:00 BC" oid/timestamp)))
+    (is (= "-0043-03-15T12:30+02:00"
+           (str (pg/decode-txt "0044-03-15 12:30:00+02 BC" oid/timestamptz)))))
+
+  (testing "long year and offset"
+    (is (= "+12345-06-07"
+           (str (pg/decode-txt "12345-06-07" oid/date))))
+    (is (= "1900-01-01T00:00+02:30:17"
+           (str (pg/decode-txt "1900-01-01 00:00:00+02:30:17" oid/timestamptz)))))
+
+  (testing "infinity"
+    (is (= LocalDate/MAX (pg/decode-txt "infinity" oid/date)))
+    (is (= LocalDate/MIN (pg/decode-txt "-infinity" oid/date)))
+    (is (= LocalDateTime/MAX (pg/decode-txt "infinity" oid/timestamp)))
+    (is (= LocalDateTime/MIN (pg/decode-txt "-infinity" oid/timestamp)))
+    (is (= OffsetDateTime/MAX (pg/decode-txt "infinity" oid/timestamptz)))
+    (is (= OffsetDateTime/MIN (pg/decode-txt "-infinity" oid/timestamptz))))
+
+  (testing "wrong value"
+    (is (thrown-with-msg? PGError #"wrong date value: 2023-13-01"
+          (pg/decode-txt "2023-13-01" oid/date)))
+    (is (thrown-with-msg? PGError #"wrong timestamp value: 2023-01-01 10:00"
+          (pg/decode-txt "2023-01-01 10:00" oid/timestamp)))))
@@ -241,3 +241,30 @@
                   (Date.))
           res (pg/encode-txt val oid/date)]
       (is (= "2023-07-25" res)))))
+
+
+(deftest test-datetime-special
+
+  (testing "BC"
+    (is (= "0044-03-15 BC"
+           (pg/encode-txt (LocalDate/of -43 3 15))))
+    (is (= "0044-03-15 12:30:00.000000 BC"
+           (pg/encode-txt (LocalDateTime/of -43 3 15 12 30 0))))
+    (is (= "0044-03-15 10:30:00.000000+00 BC"
+           (pg/encode-txt (OffsetDateTime/parse "-0043-03-15T12:30:00+02:00")))))
+
+  (testing "long year and offset"
+    (is (= "12345-06-07"
+           (pg/encode-txt (LocalDate/of 12345 6 7))))
+    (is (= "01:00:00.000000+05:30"
+           (pg/encode-txt (OffsetTime/parse "01:00:00+05:30")))))
+
+  (testing "infinity"
+    (is (= "infinity" (pg/encode-txt LocalDate/MAX)))
+    (is (= "-infinity" (pg/encode-txt LocalDate/MIN)))
+    (is (= "infinity" (pg/encode-txt LocalDateTime/MAX)))
+    (is (= "-infinity" (pg/encode-txt LocalDateTime/MIN)))
+    (is (= "infinity" (pg/encode-txt OffsetDateTime/MAX)))
+    (is (= "-infinity" (pg/encode-txt OffsetDateTime/MIN)))
+    (is (= "infinity" (pg/encode-txt Instant/MAX)))
+    (is (= "infinity" (pg/encode-txt LocalDate/MAX oid/timestamp)))))
@@ -1,6 +1,10 @@
 (ns pg.pool-test
   (:import
-   com.github.igrishaev.PGError)
+   com.github.igrishaev.PGError
+   com.github.igrishaev.enums.CloseReason
+   com.github.igrishaev.pool.IPoolListener
+   java.lang.management.ManagementFactory
+   javax.management.ObjectName)
   (:require
    [clojure.test :refer [deftest is use-fixtures testing]]
    [pg.client :as pg]
@@ -88,6 +92,101 @@
       (is (= 0 (pool/used-count pool))))))
 
 
+(deftest test-pool-concurrent-borrow
+  (pool/with-pool [pool *CONFIG* {:min-size 0 :max-size 4}]
+    (let [futs
+          (doall
+           (for [_ (range 32)]
+             (future
+               (loop [i 0 ok 0]
+                 (if (= i 50)
+                   ok
+                   (let [ok?
+                         (try
+                           (pool/with-connection [conn pool]
+                             (= [{:one 1}] (pg/execute conn "select 1 as one")))
+                           (catch PGError _
+                             false))]
+                     (recur (inc i) (if ok? (inc ok) ok))))))))
+          total
+          (reduce + (map deref futs))]
+      (is (pos? total))
+      (is (= 0 (pool/used-count pool)))
+      (is (<= 1 (pool/free-count pool) 4)))))
+
+
+(deftest test-pool-acquire-timeout-handoff
+  (pool/with-pool [pool *CONFIG* {:min-size 1
+                                  :max-size 1
+                                  :acquire-timeout 5000}]
+    (let [id1 (promise)
+          started (promise)
+          fut (future
+                (pool/with-connection [conn pool]
+                  (deliver id1 (pg/id conn))
+                  (deliver started true)
+                  (Thread/sleep 300)))]
+      @started
+      (pool/with-connection [conn pool]
+        (is (= @id1 (pg/id conn)))
+        (is (= [{:one 1}] (pg/execute conn "select 1 as one"))))
+      @fut
+      (let [{:keys [borrows waits timeouts queue-depth max-queue-depth]}
+            (pool/metrics pool)]
+        (is (= 2 borrows))
+        (is (= 1 waits))
+        (is (= 0 timeouts))
+        (is (= 0 queue-depth))
+        (is (= 1 max-queue-depth))))))
+
+
+(deftest test-pool-acquire-timeout-expires
+  (pool/with-pool [pool *CONFIG* {:min-size 1
+                                  :max-size 1
+                                  :acquire-timeout 100}]
+    (let [started (promise)
+          fut (future
+                (pool/with-connection [conn pool]
+                  (deliver started true)
+                  (Thread/sleep 1000)))]
+      @started
+      (try
+        (pool/with-connection [conn pool]
+          (is false))
+        (catch PGError e
+          (is (= "The pool is exhausted: 1 out of 1 connections are in use"
+                 (ex-message e)))))
+      (let [{:keys [timeouts queue-depth max-wait-nanos]}
+            (pool/metrics pool)]
+        (is (= 1 timeouts))
+        (is (= 0 queue-depth))
+        (is (<= 100000000 max-wait-nanos)))
+      @fut)))
+
+
+(deftest test-pool-close-wakes-waiters
+  (let [pool (pool/pool *CONFIG* {:min-size 1
+                                  :max-size 1
+                                  :acquire-timeout 5000})
+        conn (.borrowConnection pool)
+        waiting (promise)
+        fut (future
+              (deliver waiting true)
+              (try
+                (pool/with-connection [conn pool]
+                  :acquired)
+                (catch PGError e
+                  (ex-message e))))]
+    @waiting
+    (Thread/sleep 200)
+    (let [started (System/nanoTime)]
+      (pool/close pool)
+      (is (= "Cannot get a connection: the pool has been closed"
+             (deref fut 1000 :timeout)))
+      (is (< (- (System/nanoTime) started) 1000000000)))
+    (.returnConnection pool conn)))
+
+
 (deftest test-pool-lifetime
   (pool/with-pool [pool *CONFIG* {:min-size 2
                                   :max-size 2
@@ -112,6 +211,187 @@
            (pool/stats pool)))))
 
 
+(deftest test-pool-maintenance-idle
+  (pool/with-pool [pool *CONFIG* {:min-size 1
+                                  :max-size 3
+                                  :idle-timeout 200
+                                  :maintenance-interval 100}]
+    (let [latch (promise)
+          futs (doall
+                (for [_ (range 3)]
+                  (future
+                    (pool/with-connection [conn pool]
+                      @latch))))]
+      (Thread/sleep 300)
+      (is (= {:free 0 :used 3} (pool/stats pool)))
+      (deliver latch true)
+      (run! deref futs)
+      (is (= {:free 3 :used 0} (pool/stats pool)))
+      (Thread/sleep 1000)
+      (is (= {:free 1 :used 0} (pool/stats pool))))))
+
+
+(deftest test-pool-maintenance-lifetime
+  (pool/with-pool [pool *CONFIG* {:min-size 2
+                                  :max-size 2
+                                  :max-lifetime 1000
+                                  :maintenance-interval 100}]
+    (let [id1 (pool/with-connection [conn pool]
+                (pg/id conn))]
+      (Thread/sleep 1300)
+      (is (= {:free 2 :used 0} (pool/stats pool)))
+      (pool/with-connection [conn pool]
+        (is (not= id1 (pg/id conn)))))))
+
+
+(deftest test-pool-async-spawn
+  (pool/with-pool [pool *CONFIG* {:min-size 0
+                                  :max-size 2
+                                  :acquire-timeout 5000}]
+    (is (= {:free 0 :used 0} (pool/stats pool)))
+    (pool/with-connection [conn pool]
+      (is (= [{:one 1}] (pg/execute conn "select 1 as one"))))
+    (is (= {:free 1 :used 0} (pool/stats pool)))
+    (is (= 1 (:waits (pool/metrics pool))))))
+
+
+(deftest test-pool-validation-terminated
+  (pool/with-pool [pool *CONFIG* {:min-size 1
+                                  :max-size 1
+                                  :check-pending-bytes? true
+                                  :maintenance-interval 0}]
+    (let [id1 (pool/with-connection [conn pool]
+                (pg/id conn))
+          pid1 (pool/with-connection [conn pool]
+                 (pg/pid conn))]
+      (pg/with-connection [conn *CONFIG*]
+        (pg/execute conn "select pg_terminate_backend($1)" {:params [pid1]}))
+      (Thread/sleep 200)
+      (pool/with-connection [conn pool]
+        (is (not= id1 (pg/id conn)))
+        (is (= [{:one 1}] (pg/execute conn "select 1 as one"))))
+      (let [metrics (pool/metrics pool)]
+        (is (= 1 (:pending-bytes metrics)))
+        (is (= 1 (:validation-failures metrics)))))))
+
+
+(deftest test-pool-validation-off-by-default
+  (pool/with-pool [pool *CONFIG* {:min-size 1
+                                  :max-size 1
+                                  :maintenance-interval 0}]
+    (pool/with-connection [conn pool]
+      (pg/id conn))
+    (Thread/sleep 200)
+    (pool/with-connection [conn pool]
+      (is (= [{:one 1}] (pg/execute conn "select 1 as one"))))
+    (let [metrics (pool/metrics pool)]
+      (is (= 0 (:validations metrics)))
+      (is (= 0 (:pending-bytes metrics))))))
+
+
+(deftest test-pool-validation-after-idle
+  (pool/with-pool [pool *CONFIG* {:min-size 1
+                                  :max-size 1
+                                  :validate-after-idle 100
+                                  :maintenance-interval 0}]
+    (let [id1 (pool/with-connection [conn pool]
+                (pg/id conn))]
+      (pool/with-connection [conn pool]
+        (is (= id1 (pg/id conn))))
+      (is (= 0 (:validations (pool/metrics pool))))
+      (Thread/sleep 200)
+      (pool/with-connection [conn pool]
+        (is (= id1 (pg/id conn))))
+      (let [metrics (pool/metrics pool)]
+        (is (= 1 (:validations metrics)))
+        (is (= 0 (:validation-failures metrics)))))))
+
+
+(deftest test-pool-background-ping
+  (pool/with-pool [pool *CONFIG* {:min-size 1
+                                  :max-size 1
+                                  :ping-interval 100
+                                  :maintenance-interval 50}]
+    (let [pid1 (pool/with-connection [conn pool]
+                 (pg/pid conn))]
+      (Thread/sleep 300)
+      (is (pos? (:pings (pool/metrics pool))))
+      (is (= 0 (:ping-failures (pool/metrics pool))))
+      (pg/with-connection [conn *CONFIG*]
+        (pg/execute conn "select pg_terminate_backend($1)" {:params [pid1]}))
+      (Thread/sleep 300)
+      (is (= 1 (:ping-failures (pool/metrics pool))))
+      (is (= {:free 1 :used 0} (pool/stats pool)))
+      (pool/with-connection [conn pool]
+        (is (not= pid1 (pg/pid conn)))))))
+
+
+(deftest test-pool-metrics-histograms
+  (pool/with-pool [pool *CONFIG* {:min-size 1 :max-size 1}]
+    (pool/with-connection [conn pool]
+      (Thread/sleep 50))
+    (pool/with-connection [conn pool]
+      (pg/execute conn "select 1"))
+    (let [{:keys [borrow-latency
+                  hold-time
+                  created
+                  closed]}
+          (pool/metrics pool)]
+      (is (= 2 (:count borrow-latency)))
+      (is (= 2 (:count hold-time)))
+      (is (<= 50000000 (:max hold-time)))
+      (is (= 1 created))
+      (is (= 0 (:expired closed))))))
+
+
+(deftest test-pool-listener
+  (let [events (atom [])
+        listener (reify IPoolListener
+                   (onCreate [_ _ _]
+                     (swap! events conj :create))
+                   (onBorrow [_ _ _]
+                     (swap! events conj :borrow))
+                   (onReturn [_ _ _]
+                     (swap! events conj :return))
+                   (onClose [_ _ reason]
+                     (swap! events conj [:close (.getCode ^CloseReason reason)]))
+                   (onExhausted [_ used max-size]
+                     (swap! events conj [:exhausted used max-size])))]
+    (pool/with-pool [pool *CONFIG* {:min-size 0
+                                    :max-size 1
+                                    :listener listener}]
+      (let [conn (.borrowConnection pool)]
+        (is (thrown? PGError (.borrowConnection pool)))
+        (.returnConnection pool conn true))
+      (pool/with-connection [conn pool]
+        (pg/begin conn)
+        (is (thrown? PGError (pg/execute conn "selekt 1")))))
+    (is (= [:create
+            :borrow
+            [:exhausted 1 1]
+            :return
+            [:close "force-close"]
+            :create
+            :borrow
+            :return
+            [:close "tx-error"]]
+           @events))))
+
+
+(deftest test-pool-mbean
+  (let [server (ManagementFactory/getPlatformMBeanServer)
+        name (new ObjectName "com.github.igrishaev.pool:type=Pool,name=\"test-pool\"")]
+    (pool/with-pool [pool *CONFIG* {:min-size 1
+                                    :max-size 3
+                                    :name "test-pool"
+                                    :register-mbean? true}]
+      (pool/with-connection [conn pool]
+        (is (= 1 (.getAttribute server name "UsedCount"))))
+      (is (= 3 (.getAttribute server name "MaxSize")))
+      (is (= 1 (.getAttribute server name "BorrowCount"))))
+    (is (not (.isRegistered server name)))))
+
+
 (deftest test-pool-in-transaction-state
   (pool/with-pool [pool *CONFIG* {:min-size 1
                                    :max-size 1}]
@@ -179,6 +459,23 @@
       (is (not= @id2 @id3)))))
 
 
+(deftest test-pool-rollback-fails
+  (pool/with-pool [pool *CONFIG* {:min-size 1
+                                  :max-size 1
+                                  :acquire-timeout 1000}]
+    (let [id1 (pool/with-connection [conn pool]
+                (pg/begin conn)
+                (pg/with-connection [conn2 *CONFIG*]
+                  (pg/execute conn2 "select pg_terminate_backend($1)" {:params [(pg/pid conn)]}))
+                (Thread/sleep 100)
+                (pg/id conn))]
+      (is (= {:free 0 :used 0} (pool/stats pool)))
+      (is (= 1 (-> pool pool/metrics :closed :tx-error)))
+      (pool/with-connection [conn pool]
+        (is (not= id1 (pg/id conn)))
+        (is (= [{:one 1}] (pg/execute conn "select 1 as one")))))))
+
+
 (deftest test-pool-with-open
   (with-open [pool (pool/pool *CONFIG*)]
     (pool/with-connection [conn pool]
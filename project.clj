@@ -67,7 +67,9 @@
    [org.clojure/data.csv "1.0.1"]
    [metosin/jsonista "0.3.8"]
    [cheshire "5.11.0"]
-   [criterium "0.4.6"]]
+   [criterium "0.4.6"]
+   [org.openjdk.jmh/jmh-core "1.37"]
+   [org.openjdk.jmh/jmh-generator-annprocess "1.37"]]
 
   :profiles
   {:dev